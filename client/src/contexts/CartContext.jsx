@@ -190,6 +190,19 @@ export const CartProvider = ({ children }) => {
         }
     }
 
+    // VARIAS OPERACIONES JUNTAS (ej: repetir una orden) -> un solo request
+    const applyCartOperations = async (operations) => {
+        try {
+            const data = await api.updateCart(operations);
+            setCartItems(mapAndSort(data.items));
+            return true;
+        } catch (err) {
+            console.error(err);
+            toast.error(err.response?.data?.error || err.message || "Error al actualizar el carrito");
+            return false;
+        }
+    };
+
     // AUXILIARES
     const mapAndSort = items => {
         const mapped = items.map(item => ({
@@ -241,6 +254,7 @@ export const CartProvider = ({ children }) => {
                 removeOne,
                 removeFromCart,
                 clearCart,
+                applyCartOperations,
                 loading,
                 error
             }}
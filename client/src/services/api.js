@@ -182,6 +182,20 @@ const api = {
         return handleResponse(response, 'Error al vaciar carrito');
     },
 
+    // Varias operaciones en un solo viaje: [{ type: 'SET' | 'INCREMENT' | 'REMOVE', productId, quantity }]
+    updateCart: async (operations) => {
+        const token = getToken();
+        const response = await fetch(`${API_URL}/cart`, {
+            method: 'PATCH',
+            headers: {
+                'Authorization': `Bearer ${token}`,
+                'Content-Type': 'application/json'
+            },
+            body: JSON.stringify({ operations })
+        });
+        return handleResponse(response, 'Error al actualizar carrito');
+    },
+
     // ORDERS
     createOrder: async (orderData) => {
         const token = getToken();
@@ -0,0 +1,69 @@
+package com.ecommerce.template.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+// Pools de hilos propios para trabajo en segundo plano (acotados, para no competir con Tomcat)
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    // Workers que procesan las notificaciones de MercadoPago
+    @Bean
+    public ThreadPoolTaskExecutor webhookExecutor(
+            @Value("${webhook.worker.threads:4}") int threads,
+            @Value("${webhook.worker.queue-capacity:100}") int queueCapacity,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("webhook-");
+        if (virtualThreads) {
+            // Mismo límite de concurrencia, pero bloquear esperando a MP ya no cuesta un hilo de plataforma
+            executor.setThreadFactory(Thread.ofVirtual().name("webhook-", 0).factory());
+        }
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Tramos de la reconstrucción de métricas de ventas (cada uno usa una conexión JDBC)
+    @Bean
+    public ThreadPoolTaskExecutor analyticsExecutor(@Value("${analytics.rebuild.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("analytics-");
+        return executor;
+    }
+
+    // Reconstrucción de los snapshots del catálogo: un solo hilo, los pedidos que llegan mientras corre se fusionan
+    @Bean
+    public ThreadPoolTaskExecutor catalogExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("catalog-");
+        return executor;
+    }
+
+    // Generación de tamaños de imágenes: pocos hilos (decodificar es CPU y heap) y cola acotada.
+    // Si se llena, la imagen se sirve en su tamaño original hasta que se reintente
+    @Bean
+    public ThreadPoolTaskExecutor imageExecutor(
+            @Value("${images.derivatives.threads:2}") int threads,
+            @Value("${images.derivatives.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("images-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
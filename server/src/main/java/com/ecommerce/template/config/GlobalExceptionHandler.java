@@ -1,7 +1,10 @@
 package com.ecommerce.template.config;
 
+import com.ecommerce.template.service.UpstreamBusyException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError; // ✨ NECESARIO
@@ -38,7 +41,21 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
-    // 2. Errores lógicos (ID no encontrado, Stock insuficiente, etc.)
+    // 2. Servicio externo saturado (bulkhead lleno): 503 para que el cliente reintente
+    @ExceptionHandler(UpstreamBusyException.class)
+    public ResponseEntity<Map<String, String>> handleUpstreamBusy(UpstreamBusyException ex) {
+        logger.warn("⚠️ [UPSTREAM SATURADO]: {}", ex.getMessage());
+
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", ex.getMessage());
+        errorResponse.put("status", "error");
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "2")
+                .body(errorResponse);
+    }
+
+    // 3. Errores lógicos (ID no encontrado, Stock insuficiente, etc.)
     @ExceptionHandler({IllegalArgumentException.class, RuntimeException.class})
     public ResponseEntity<Map<String, String>> handleLogicErrors(Exception ex) {
         logger.warn("⚠️ [ERROR LÓGICO]: {}", ex.getMessage());
@@ -50,7 +67,7 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
-    // 3. Errores generales (NullPointer, Base de datos caída, etc.)
+    // 4. Errores generales (NullPointer, Base de datos caída, etc.)
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGeneralErrors(Exception ex) {
         logger.error("❌ [ERROR CRÍTICO]: {}", ex.getMessage(), ex);
@@ -0,0 +1,28 @@
+package com.ecommerce.template.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Métricas (Micrometer -> /actuator/prometheus). Actuator ya registra HTTP, JVM, pool Hikari y los executors;
+// acá se suma @Timed en los servicios y un tope de series por métrica.
+// Regla para las etiquetas: solo valores de un conjunto cerrado (operación, resultado, etapa), nunca ids ni textos del usuario
+@Configuration
+public class MetricsConfig {
+
+    // Hace que @Timed funcione en cualquier bean de Spring (no solo en los controllers)
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    // Red de seguridad: si una etiqueta se escapa de control, http.server.requests deja de crear series nuevas
+    // (las URIs ya vienen como plantilla, ej: /api/products/{id}; esto corta casos como 404 con rutas inventadas)
+    @Bean
+    public MeterFilter httpUriCardinalityLimit(@Value("${metrics.http.max-uri-tags:200}") int maxUriTags) {
+        return MeterFilter.maximumAllowableTags("http.server.requests", "uri", maxUriTags, MeterFilter.deny());
+    }
+}
@@ -0,0 +1,59 @@
+package com.ecommerce.template.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// DDL que Hibernate (ddl-auto=update) no sabe generar: extensiones, índices especiales de Postgres
+// y ajustes de secuencias
+// Todo es idempotente (IF NOT EXISTS), se ejecuta en cada arranque después de que Hibernate creó las tablas
+@Component
+public class SchemaInitializer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaInitializer.class);
+
+    // Tiene que coincidir con allocationSize de @SequenceGenerator
+    private static final int SEQUENCE_ALLOCATION_SIZE = 50;
+
+    private static final List<String> STATEMENTS = List.of(
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            // Misma expresión que ProductRepository.SEARCH_DOCUMENT
+            "CREATE INDEX IF NOT EXISTS idx_products_search ON products USING gin " +
+                    "(to_tsvector('spanish', coalesce(name, '') || ' ' || coalesce(description, '')))",
+            "CREATE INDEX IF NOT EXISTS idx_products_name_trgm ON products USING gin (lower(name) gin_trgm_ops)",
+            // Órdenes e items pasaron de IDENTITY a secuencias: las adelantamos por encima del id máximo
+            // existente (solo si hace falta) para no chocar con filas creadas antes del cambio
+            syncSequence("orders_seq", "orders"),
+            syncSequence("order_items_seq", "order_items"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SchemaInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private static String syncSequence(String sequence, String table) {
+        return "SELECT setval('" + sequence + "', (SELECT COALESCE(MAX(id), 0) + " + SEQUENCE_ALLOCATION_SIZE +
+                " FROM " + table + ")) WHERE (SELECT last_value FROM " + sequence + ") <= " +
+                "(SELECT COALESCE(MAX(id), 0) FROM " + table + ")";
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String statement : STATEMENTS) {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (Exception e) {
+                // Sin permisos para CREATE EXTENSION (o base que no es Postgres): la app sigue funcionando,
+                // solo que la búsqueda no va a tener índice
+                logger.warn("⚠️ [SCHEMA] No se pudo ejecutar '{}': {}", statement, e.getMessage());
+            }
+        }
+        logger.info("🗂️ [SCHEMA] Índices y secuencias verificados");
+    }
+}
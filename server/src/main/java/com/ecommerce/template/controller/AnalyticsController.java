@@ -0,0 +1,58 @@
+package com.ecommerce.template.controller;
+
+import com.ecommerce.template.dto.SalesPointDTO;
+import com.ecommerce.template.dto.SalesRankingDTO;
+import com.ecommerce.template.model.RollupGranularity;
+import com.ecommerce.template.service.SalesRollupService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+// Tableros de ventas (solo admin, cubierto por /api/admin/** en SecurityConfig)
+// Leen los acumulados: el costo depende de los días pedidos, no de la cantidad de órdenes
+@RestController
+@RequestMapping("/api/admin/analytics")
+public class AnalyticsController {
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    // ?granularity=DAY|HOUR&from=2025-01-01&to=2025-01-31
+    @GetMapping("/sales")
+    public ResponseEntity<List<SalesPointDTO>> getSales(
+            @RequestParam(defaultValue = "DAY") RollupGranularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return ResponseEntity.ok(salesRollupService.getSalesSeries(granularity, from, to));
+    }
+
+    @GetMapping("/top-products")
+    public ResponseEntity<List<SalesRankingDTO>> getTopProducts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(salesRollupService.getTopProducts(from, to, limit));
+    }
+
+    @GetMapping("/categories")
+    public ResponseEntity<List<SalesRankingDTO>> getCategorySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return ResponseEntity.ok(salesRollupService.getCategorySales(from, to));
+    }
+
+    // Recalcula todos los acumulados desde el historial de órdenes
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        return ResponseEntity.ok(salesRollupService.rebuild());
+    }
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.template.controller;
+
+import com.ecommerce.template.security.JwtUtil;
+import com.ecommerce.template.service.CatalogCache;
+import com.ecommerce.template.service.HotImageCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Métricas de los cachés en memoria (para dimensionarlos). Solo ADMIN.
+@RestController
+@RequestMapping("/api/admin/cache")
+public class CacheController {
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    // Solo existe con images.storage=local
+    @Autowired(required = false)
+    private HotImageCache hotImageCache;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("catalog", catalogCache.stats());
+        stats.put("jwt", jwtUtil.cacheStats());
+        if (hotImageCache != null) stats.put("images", hotImageCache.stats());
+        return ResponseEntity.ok(stats);
+    }
+}
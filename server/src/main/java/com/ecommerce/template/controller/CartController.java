@@ -1,6 +1,8 @@
 package com.ecommerce.template.controller;
 
+import com.ecommerce.template.dto.CartBatchRequestDTO;
 import com.ecommerce.template.dto.CartDTO;
+import com.ecommerce.template.dto.CartDeltaDTO;
 import com.ecommerce.template.dto.CartItemDTO;
 import com.ecommerce.template.service.CartService;
 
@@ -20,23 +22,38 @@ public class CartController {
         return ResponseEntity.ok(cartService.getCart());
     }
 
+    // Varias operaciones en un solo viaje (fusionar carrito de invitado, repetir una orden, etc.)
+    // Body: { "operations": [ { "type": "SET|INCREMENT|REMOVE", "productId": 1, "quantity": 2 } ] }
+    @PatchMapping
+    public ResponseEntity<CartDTO> applyOperations(@RequestBody CartBatchRequestDTO request) {
+        return ResponseEntity.ok(cartService.applyOperations(request.getOperations()));
+    }
+
+    // Las mutaciones aceptan ?delta=true para devolver solo la línea tocada + totales (CartDeltaDTO)
     @PostMapping("/items")
-    public ResponseEntity<CartDTO> addItem(@RequestBody CartItemDTO itemDTO) {
-        return ResponseEntity.ok(cartService.addItem(itemDTO.getProductId(), itemDTO.getQuantity()));
+    public ResponseEntity<?> addItem(@RequestBody CartItemDTO itemDTO,
+                                     @RequestParam(defaultValue = "false") boolean delta) {
+        return respond(cartService.addItem(itemDTO.getProductId(), itemDTO.getQuantity()), itemDTO.getProductId(), delta);
     }
 
     @DeleteMapping("/items/{productId}/one")
-    public ResponseEntity<CartDTO> removeOne(@PathVariable Long productId) {
-        return ResponseEntity.ok(cartService.removeOne(productId));
+    public ResponseEntity<?> removeOne(@PathVariable Long productId,
+                                       @RequestParam(defaultValue = "false") boolean delta) {
+        return respond(cartService.removeOne(productId), productId, delta);
     }
 
     @DeleteMapping("/items/{productId}")
-    public ResponseEntity<CartDTO> removeItem(@PathVariable Long productId) {
-        return ResponseEntity.ok(cartService.removeItem(productId));
+    public ResponseEntity<?> removeItem(@PathVariable Long productId,
+                                        @RequestParam(defaultValue = "false") boolean delta) {
+        return respond(cartService.removeItem(productId), productId, delta);
     }
 
     @DeleteMapping("/clear")
-    public ResponseEntity<CartDTO> clearCart() {
-        return ResponseEntity.ok(cartService.clearCart());
+    public ResponseEntity<?> clearCart(@RequestParam(defaultValue = "false") boolean delta) {
+        return respond(cartService.clearCart(), null, delta);
+    }
+
+    private ResponseEntity<?> respond(CartDTO cart, Long productId, boolean delta) {
+        return ResponseEntity.ok(delta ? CartDeltaDTO.of(cart, productId) : cart);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package com.ecommerce.template.controller;
+
+import com.ecommerce.template.service.CatalogSnapshots;
+import com.ecommerce.template.service.CatalogVersion;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// GET condicionales del catálogo público: ETag = versión del catálogo.
+// Si el If-None-Match coincide se responde 304 sin llamar al servicio (ni base ni Jackson)
+@Component
+public class CatalogHttpCache {
+
+    private final CatalogVersion catalogVersion;
+    private final CacheControl cacheControl;
+
+    public CatalogHttpCache(CatalogVersion catalogVersion,
+                            @Value("${catalog.http.max-age-seconds:0}") long maxAgeSeconds) {
+        this.catalogVersion = catalogVersion;
+        // public: la respuesta no depende del usuario, la pueden guardar CDN y proxies.
+        // must-revalidate: vencido el max-age se vuelve a preguntar (barato gracias al 304)
+        this.cacheControl = CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic().mustRevalidate();
+    }
+
+    public <T> ResponseEntity<T> respond(WebRequest request, Supplier<T> body) {
+        // La versión se lee ANTES de cargar los datos: lo que se sirva es al menos tan nuevo como el ETag.
+        // ETag débil: Tomcat no comprime respuestas con ETag fuerte (los bytes cambian con la codificación)
+        String etag = "W/" + catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        // checkNotModified ya dejó el ETag en la respuesta (repetirlo acá duplicaría el header)
+        return ResponseEntity.ok().cacheControl(cacheControl).body(body.get());
+    }
+
+    // Vista pre-armada: los bytes del snapshot van directo a la respuesta (sin Jackson ni compresión por pedido).
+    // gzip e identidad son representaciones distintas, así que cada una lleva su propio ETag
+    public ResponseEntity<byte[]> respond(WebRequest request, CatalogSnapshots.View view) {
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String etag = gzip ? CatalogVersion.etagOf(view.version(), "gzip") : CatalogVersion.etagOf(view.version());
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(view.gzip());
+        }
+        return response.body(view.json());
+    }
+
+    // "gzip", "gzip;q=0.8", "*"... pero no "gzip;q=0"
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*")) continue;
+            boolean refused = tokens.length > 1 && tokens[1].replace(" ", "").matches("q=0(\\.0*)?");
+            if (!refused) return true;
+        }
+        return false;
+    }
+}
@@ -1,10 +1,12 @@
 package com.ecommerce.template.controller;
 
 import com.ecommerce.template.dto.CategoryDTO;
+import com.ecommerce.template.dto.CategorySummaryDTO;
 import com.ecommerce.template.service.CategoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -15,9 +17,18 @@ public class CategoryController {
     @Autowired
     private CategoryService categoryService;
 
+    @Autowired
+    private CatalogHttpCache catalogHttpCache;
+
     @GetMapping
-    public ResponseEntity<List<CategoryDTO>> getAllCategories() {
-        return ResponseEntity.ok(categoryService.getAllCategories());
+    public ResponseEntity<List<CategoryDTO>> getAllCategories(WebRequest request) {
+        return catalogHttpCache.respond(request, categoryService::getAllCategories);
+    }
+
+    // Modo liviano: id, nombre y cantidad de productos (ideal para menús y filtros)
+    @GetMapping("/summary")
+    public ResponseEntity<List<CategorySummaryDTO>> getCategorySummaries(WebRequest request) {
+        return catalogHttpCache.respond(request, categoryService::getCategorySummaries);
     }
 
     @PostMapping
@@ -1,11 +1,13 @@
 package com.ecommerce.template.controller;
 
+import com.ecommerce.template.dto.ImageSrcset;
 import com.ecommerce.template.service.ImageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -18,6 +20,11 @@ public class ImageController {
     @PostMapping("/upload")
     public ResponseEntity<Map<String, String>> upload(@RequestParam("file") MultipartFile file) {
         String url = imageService.uploadImage(file);
-        return ResponseEntity.ok(Map.of("url", url));
+
+        Map<String, String> response = new LinkedHashMap<>();
+        response.put("url", url);
+        String srcset = ImageSrcset.of(url);
+        if (srcset != null) response.put("srcset", srcset);
+        return ResponseEntity.ok(response);
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.ecommerce.template.controller;
+
+import com.ecommerce.template.service.HotImageCache;
+import com.ecommerce.template.service.HotImageCache.HotImage;
+import com.ecommerce.template.service.LocalImageStorage;
+import com.ecommerce.template.service.LocalImageStorage.ImageFile;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+
+// Sirve las imágenes del almacenamiento local (images.storage=local) sin pasar por un tercero.
+// Las URLs llevan el hash del contenido, así que un archivo nunca cambia: se cachea un año como immutable
+// y el navegador ni siquiera revalida. Los pedidos con Range los resuelve Spring sobre el Resource (206)
+@RestController
+@RequestMapping("/api/images/files")
+@ConditionalOnProperty(name = "images.storage", havingValue = "local")
+public class ImageFileController {
+
+    // Atributos con los que Tomcat (conector NIO) envía el archivo con sendfile/FileChannel.transferTo
+    // después de que el controlador termina: los bytes van del page cache al socket sin pasar por el heap
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    // Variante todavía no generada: se sirve el original, pero por poco tiempo para que después llegue la chica
+    private static final CacheControl PROVISIONAL = CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic();
+
+    private final LocalImageStorage storage;
+    private final HotImageCache hot;
+    private final long sendfileMinBytes;
+
+    public ImageFileController(
+            LocalImageStorage storage,
+            HotImageCache hot,
+            @Value("${images.serve.sendfile-min-bytes:49152}") long sendfileMinBytes) {
+        this.storage = storage;
+        this.hot = hot;
+        this.sendfileMinBytes = sendfileMinBytes;
+    }
+
+    @GetMapping("/{hash}/{name}")
+    public ResponseEntity<Resource> serve(@PathVariable String hash, @PathVariable String name,
+                                          WebRequest webRequest, HttpServletRequest request) throws IOException {
+        String key = hash + "/" + name;
+        HotImage cached = hot.get(key);
+        if (cached != null) {
+            return respond(webRequest, cached.etag(), IMMUTABLE, cached.type(), new ByteArrayResource(cached.bytes()));
+        }
+
+        ImageFile file = storage.locate(hash, name);
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // El ETag es el del archivo servido: cuando aparece la variante, el original provisorio deja de coincidir
+        String etag = "\"" + hash + "-" + file.path().getFileName() + "\"";
+        CacheControl cacheControl = file.exact() ? IMMUTABLE : PROVISIONAL;
+        MediaType type = mediaType(file.extension());
+        if (webRequest.checkNotModified(etag)) {
+            return notModified(etag, cacheControl);
+        }
+
+        long size = Files.size(file.path());
+        if (file.exact() && hot.admits(size)) {
+            byte[] bytes = Files.readAllBytes(file.path());
+            hot.put(key, new HotImage(bytes, etag, type));
+            return ResponseEntity.ok().cacheControl(cacheControl).contentType(type).body(new ByteArrayResource(bytes));
+        }
+
+        if (size >= sendfileMinBytes && canSendfile(request)) {
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return ResponseEntity.ok().cacheControl(cacheControl).contentType(type).contentLength(size).build();
+        }
+        return ResponseEntity.ok().cacheControl(cacheControl).contentType(type).body(new FileSystemResource(file.path()));
+    }
+
+    private ResponseEntity<Resource> respond(WebRequest webRequest, String etag, CacheControl cacheControl,
+                                             MediaType type, Resource body) {
+        if (webRequest.checkNotModified(etag)) {
+            return notModified(etag, cacheControl);
+        }
+        // checkNotModified ya dejó el ETag en la respuesta
+        return ResponseEntity.ok().cacheControl(cacheControl).contentType(type).body(body);
+    }
+
+    private static ResponseEntity<Resource> notModified(String etag, CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+    }
+
+    // Solo respuestas completas a un GET: los Range y los HEAD siguen por el camino de Spring
+    private static boolean canSendfile(HttpServletRequest request) {
+        return Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))
+                && HttpMethod.GET.matches(request.getMethod())
+                && request.getHeader(HttpHeaders.RANGE) == null;
+    }
+
+    private static MediaType mediaType(String extension) {
+        return switch (extension) {
+            case "png" -> MediaType.IMAGE_PNG;
+            case "gif" -> MediaType.IMAGE_GIF;
+            case "webp" -> MediaType.parseMediaType("image/webp");
+            default -> MediaType.IMAGE_JPEG;
+        };
+    }
+}
@@ -1,17 +1,31 @@
 package com.ecommerce.template.controller;
 
+import com.ecommerce.template.dto.OrderCreatedDTO;
+import com.ecommerce.template.dto.OrderDetailDTO;
+import com.ecommerce.template.dto.OrderSummaryDTO;
+import com.ecommerce.template.dto.PageDTO;
 import com.ecommerce.template.dto.PaymentRequestDTO;
 import com.ecommerce.template.model.Order;
 import com.ecommerce.template.model.OrderStatus;
+import com.ecommerce.template.model.User;
+import com.ecommerce.template.service.CartService;
+import com.ecommerce.template.service.OrderExportService;
 import com.ecommerce.template.service.OrderService;
 import com.ecommerce.template.service.PaymentService;
+import com.ecommerce.template.service.UpstreamBusyException;
+import com.ecommerce.template.service.WebhookService;
 import com.mercadopago.resources.payment.Payment;
 
-import java.util.HashMap;
-import java.util.List;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
@@ -26,13 +40,22 @@ public class OrderController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private CartService cartService;
+
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createOrder(@RequestBody PaymentRequestDTO request) {
+    public ResponseEntity<OrderCreatedDTO> createOrder(@RequestBody PaymentRequestDTO request) {
         String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        Order order = orderService.createOrder(request, userEmail);
-        Map<String, Object> response = new HashMap<>();
-        response.put("order", order);
-        return ResponseEntity.ok(response);
+        // El carrito se vuelca antes de abrir la transacción de la orden (cart.store=write-behind)
+        Order order = cartService.checkout(() -> orderService.createOrder(request, userEmail));
+        // Mismo JSON de siempre ({ "order": {...} }) pero con el DTO en lugar de la entidad y sus proxies
+        return ResponseEntity.ok(new OrderCreatedDTO(orderService.convertToDetailDTO(order)));
     }
 
     @PostMapping("/payment/process")
@@ -43,6 +66,8 @@ public class OrderController {
                     "status", payment.getStatus(),
                     "status_detail", payment.getStatusDetail(),
                     "id", payment.getId()));
+        } catch (UpstreamBusyException e) {
+            throw e; // 503: MP está saturado, el cliente puede reintentar
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -54,13 +79,60 @@ public class OrderController {
         return ResponseEntity.ok(Map.of("preferenceId", preferenceId));
     }
 
+    // Listado admin paginado: ?status=PAGADO&from=2025-01-01&to=2025-01-31&page=0&size=20
+    @GetMapping("/page")
+    public ResponseEntity<PageDTO<OrderSummaryDTO>> getOrderPage(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(orderService.getOrderPage(status, from, to, page, size));
+    }
+
+    @GetMapping("/my-orders/page")
+    public ResponseEntity<PageDTO<OrderSummaryDTO>> getMyOrderPage(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(orderService.getUserOrderPage(status, from, to, page, size));
+    }
+
+    // Exportación para finanzas (admin): ?format=csv|ndjson&status=...&from=...&to=...
+    // Se escribe directo al output stream mientras se leen las filas (no se arma la lista en memoria)
+    @GetMapping("/export")
+    public void exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletResponse response
+    ) throws IOException {
+        OrderExportService.Format exportFormat = OrderExportService.Format.fromParam(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"orders." + exportFormat.getExtension() + "\"");
+        orderExportService.export(exportFormat, status, from, to, response.getOutputStream());
+    }
+
+    @GetMapping("/{id}/detail")
+    public ResponseEntity<OrderDetailDTO> getOrderDetail(@PathVariable Long id) {
+        return ResponseEntity.ok(orderService.getOrderDetail(id));
+    }
+
+    // Listado completo (admin): se escribe en streaming desde el cursor, sin cargar las entidades
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public void getAllOrders(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        orderExportService.writeOrderList(null, response.getOutputStream());
     }
 
     @PatchMapping("/{id}/status")
-    public ResponseEntity<Order> updateStatus(@PathVariable Long id, @RequestBody Map<String, String> payload) {
+    public ResponseEntity<OrderDetailDTO> updateStatus(@PathVariable Long id, @RequestBody Map<String, String> payload) {
         String statusStr = payload.get("status");
         try {
             OrderStatus newStatus = OrderStatus.valueOf(statusStr.toUpperCase());
@@ -71,58 +143,24 @@ public class OrderController {
     }
 
     @GetMapping("/my-orders")
-    public ResponseEntity<List<Order>> getMyOrders() {
-        return ResponseEntity.ok(orderService.getUserOrders());
+    public void getMyOrders(HttpServletResponse response) throws IOException {
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        orderExportService.writeOrderList(user.getId(), response.getOutputStream());
     }
 
+    // Mismo detalle que /{id}/detail (DTO, solo el dueño o un admin); se mantiene por el checkout del front
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.getOrderById(id));
+    public ResponseEntity<OrderDetailDTO> getOrderById(@PathVariable Long id) {
+        return ResponseEntity.ok(orderService.getOrderDetail(id));
     }
 
     // ✨ WEBHOOK: MercadoPago llama a esta URL cuando hay novedades
+    // Solo encolamos y respondemos 200 al toque: la consulta a MP la hacen los workers (WebhookService)
+    // Si no pudimos guardar la notificación, el error vuelve como no-2xx y MP la reintenta
     @PostMapping("/webhook")
     public ResponseEntity<String> receiveWebhook(@RequestParam Map<String, String> params) {
-        System.out.println("🔔 WEBHOOK RECIBIDO: " + params);
-
-        // 1. Detectar si es un aviso de pago
-        // MP suele mandar: ?type=payment&data.id=... O ?topic=payment&id=...
-        String type = params.get("type");
-        String topic = params.get("topic");
-        String idStr = params.get("data.id");
-        
-        if (idStr == null) {
-            idStr = params.get("id"); // Fallback para topic=payment
-        }
-
-        // 2. Si es un pago, verificamos el estado real en MP
-        if ("payment".equals(type) || "payment".equals(topic)) {
-            if (idStr != null) {
-                try {
-                    Long paymentId = Long.parseLong(idStr);
-                    
-                    // Consultamos a MP (Fuente de verdad)
-                    Payment payment = paymentService.getPaymentById(paymentId);
-                    
-                    // Verificamos que esté aprobado
-                    if ("approved".equals(payment.getStatus())) {
-                        // El externalReference es nuestro Order ID
-                        String externalRef = payment.getExternalReference();
-                        Long orderId = Long.parseLong(externalRef);
-                        
-                        // Actualizamos la orden en nuestro sistema
-                        orderService.approveOrderPayment(orderId);
-                        
-                        System.out.println("✅ ORDEN #" + orderId + " PAGADA EXITOSAMENTE");
-                    }
-                } catch (Exception e) {
-                    System.err.println("❌ Error procesando webhook: " + e.getMessage());
-                    // Aun si fallamos nosotros, devolvemos 200 a MP para que no reintente infinitamente
-                    // (O devuelve 500 si prefieres que reintente luego)
-                }
-            }
-        }
-
+        webhookService.enqueue(params);
         return ResponseEntity.ok("Recibido");
     }
 }
\ No newline at end of file
@@ -1,12 +1,24 @@
 package com.ecommerce.template.controller;
 
+import com.ecommerce.template.dto.BulkPriceUpdateDTO;
+import com.ecommerce.template.dto.BulkStockUpdateDTO;
+import com.ecommerce.template.dto.BulkUpdateResultDTO;
+import com.ecommerce.template.dto.PageDTO;
 import com.ecommerce.template.dto.ProductDTO;
+import com.ecommerce.template.dto.ProductImportResultDTO;
+import com.ecommerce.template.dto.ProductPageDTO;
+import com.ecommerce.template.service.CatalogSnapshots;
+import com.ecommerce.template.service.ProductBulkUpdateService;
+import com.ecommerce.template.service.ProductImportService;
 import com.ecommerce.template.service.ProductService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid; // Necesario para activar las validaciones del DTO
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -15,16 +27,54 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService; // 'final' es clave aquí
+    private final CatalogHttpCache catalogHttpCache;
+    private final CatalogSnapshots catalogSnapshots;
+    private final ProductImportService productImportService;
+    private final ProductBulkUpdateService productBulkUpdateService;
 
+    // Las vistas por defecto de la vitrina (activos, sin búsqueda) salen del snapshot pre-serializado
     @GetMapping
-    public ResponseEntity<List<ProductDTO>> getAllProducts(
+    public ResponseEntity<?> getAllProducts(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) Boolean inStock,
             @RequestParam(required = false) Boolean active,
-            @RequestParam(required = false) String sortOrder
+            @RequestParam(required = false) String sortOrder,
+            WebRequest request
     ) {
-        return ResponseEntity.ok(productService.getAllProducts(name, categoryId, inStock, active, sortOrder));
+        CatalogSnapshots.View view = catalogSnapshots.find(name, categoryId, inStock, active, sortOrder);
+        if (view != null) {
+            return catalogHttpCache.respond(request, view);
+        }
+        return catalogHttpCache.respond(request,
+                () -> productService.getAllProducts(name, categoryId, inStock, active, sortOrder));
+    }
+
+    // Catálogo paginado por cursor: ?size=24 para la primera página, luego ?cursor=<nextCursor>
+    @GetMapping("/page")
+    public ResponseEntity<ProductPageDTO> getProductPage(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) String sortOrder,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "24") int size,
+            WebRequest request
+    ) {
+        return catalogHttpCache.respond(request,
+                () -> productService.getProductPage(name, categoryId, inStock, active, sortOrder, cursor, size));
+    }
+
+    // Buscador full-text: resultados por relevancia (nombre + descripción, con prefijos y typos)
+    @GetMapping("/search")
+    public ResponseEntity<PageDTO<ProductDTO>> searchProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "24") int size,
+            WebRequest request
+    ) {
+        return catalogHttpCache.respond(request, () -> productService.searchProducts(q, page, size));
     }
 
     @PostMapping
@@ -33,6 +83,24 @@ public class ProductController {
         return ResponseEntity.ok(productService.createProduct(productDTO));
     }
 
+    // Importación masiva: el body es el archivo (Content-Type text/csv o application/x-ndjson) y se procesa en streaming
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ProductImportResultDTO> importProducts(HttpServletRequest request) throws IOException {
+        ProductImportService.Format format = ProductImportService.Format.fromContentType(request.getContentType());
+        return ResponseEntity.ok(productImportService.importProducts(format, request.getInputStream()));
+    }
+
+    // Ajustes masivos (con "dryRun": true solo devuelven cuántos productos cambiarían y una muestra)
+    @PostMapping("/bulk/price")
+    public ResponseEntity<BulkUpdateResultDTO> adjustPrices(@RequestBody BulkPriceUpdateDTO request) {
+        return ResponseEntity.ok(productBulkUpdateService.adjustPrices(request));
+    }
+
+    @PostMapping("/bulk/stock")
+    public ResponseEntity<BulkUpdateResultDTO> updateStock(@RequestBody BulkStockUpdateDTO request) {
+        return ResponseEntity.ok(productBulkUpdateService.updateStock(request));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
         productService.deleteProduct(id);
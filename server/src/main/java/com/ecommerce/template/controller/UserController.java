@@ -4,6 +4,7 @@ import com.ecommerce.template.dto.UserDTO;
 import com.ecommerce.template.model.AuthProvider;
 import com.ecommerce.template.model.User;
 import com.ecommerce.template.repository.UserRepository;
+import com.ecommerce.template.security.AuthenticatedUserCache;
 import com.ecommerce.template.security.JwtUtil;
 import com.ecommerce.template.service.ImageService;
 
@@ -38,6 +39,9 @@ public class UserController {
     @Autowired
     private ImageService imageService;
 
+    @Autowired
+    private AuthenticatedUserCache authenticatedUserCache;
+
     // Helper
     private User getCurrentUser() {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
@@ -68,12 +72,13 @@ public class UserController {
             if (userRepository.findByUsername(newUsername).isPresent() && !user.getUsername().equals(newUsername)) {
                 throw new RuntimeException("El nombre de usuario ya está en uso");
             }
+            authenticatedUserCache.invalidate(user.getUsername());
             user.setUsername(newUsername);
             userRepository.save(user);
         }
         
         // GENERAR NUEVO TOKEN CON EL NUEVO NOMBRE
-        String newToken = jwtUtil.generateToken(user.getUsername(), user.getRole(), user.getProfilePictureUrl());
+        String newToken = jwtUtil.generateToken(user.getId(), user.getUsername(), user.getRole(), user.getProfilePictureUrl());
 
         // Devolvemos el usuario actualizado Y el nuevo token
         return ResponseEntity.ok(Map.of(
@@ -91,6 +96,7 @@ public class UserController {
 
         user.setProfilePictureUrl(imageUrl);
         userRepository.save(user);
+        authenticatedUserCache.invalidate(user.getUsername());
 
         return ResponseEntity.ok(new UserDTO(
             user.getId(),
@@ -119,6 +125,7 @@ public class UserController {
 
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        authenticatedUserCache.invalidate(user.getUsername());
 
         return ResponseEntity.ok(Map.of("message", "Contraseña actualizada correctamente"));
     }
@@ -0,0 +1,23 @@
+package com.ecommerce.template.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+// Ajuste masivo de precios (ej: "-15% en la categoría X"). Filtros opcionales (sin filtros = todo el catálogo)
+// y exactamente uno de percent (-15 = 15% menos) o amount (monto fijo a sumar, negativo resta)
+@Getter
+@Setter
+public class BulkPriceUpdateDTO {
+
+    private Long categoryId;
+    private String name;
+    private Boolean active;
+
+    private BigDecimal percent;
+    private BigDecimal amount;
+
+    // true = no modifica nada, devuelve cuántos productos cambiarían y una muestra
+    private boolean dryRun;
+}
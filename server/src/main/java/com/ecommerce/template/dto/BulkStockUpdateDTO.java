@@ -0,0 +1,27 @@
+package com.ecommerce.template.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Resincronización de stock desde el depósito, por SKU:
+// SET = dejar la cantidad exacta, INCREMENT = sumar (negativo resta, sin bajar de 0)
+@Getter
+@Setter
+public class BulkStockUpdateDTO {
+
+    public enum Mode { SET, INCREMENT }
+
+    @Getter
+    @Setter
+    public static class Item {
+        private String sku;
+        private Integer quantity;
+    }
+
+    private Mode mode;
+    private List<Item> items = new ArrayList<>();
+    private boolean dryRun;
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.template.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+// Resultado de un ajuste masivo (o de su simulación): filas afectadas, una muestra antes/después
+// y los SKUs que no se pudieron aplicar (inexistentes o stock que quedaría negativo)
+@Getter
+public class BulkUpdateResultDTO {
+
+    public record Change(Long id, String sku, String name, Number before, Number after) {}
+
+    private final boolean dryRun;
+    private final long affected;
+    private final List<Change> preview;
+    private final List<String> skipped;
+
+    public BulkUpdateResultDTO(boolean dryRun, long affected, List<Change> preview, List<String> skipped) {
+        this.dryRun = dryRun;
+        this.affected = affected;
+        this.preview = preview;
+        this.skipped = skipped;
+    }
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.template.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class CartBatchRequestDTO {
+
+    private List<CartOperationDTO> operations = new ArrayList<>();
+}
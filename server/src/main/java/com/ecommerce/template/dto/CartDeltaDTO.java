@@ -0,0 +1,39 @@
+package com.ecommerce.template.dto;
+
+import lombok.Getter;
+
+import java.util.Objects;
+
+// Respuesta corta de una mutación del carrito (?delta=true): solo la línea tocada y los totales.
+// item es null si la línea se eliminó (o si se vació el carrito)
+@Getter
+public class CartDeltaDTO {
+
+    private final Long productId;
+    private final CartItemDTO item;
+    private final int itemCount;
+    private final int totalQuantity;
+    private final double total;
+
+    public CartDeltaDTO(Long productId, CartItemDTO item, int itemCount, int totalQuantity, double total) {
+        this.productId = productId;
+        this.item = item;
+        this.itemCount = itemCount;
+        this.totalQuantity = totalQuantity;
+        this.total = total;
+    }
+
+    public static CartDeltaDTO of(CartDTO cart, Long productId) {
+        CartItemDTO changed = null;
+        int totalQuantity = 0;
+        double total = 0;
+        for (CartItemDTO item : cart.getItems()) {
+            totalQuantity += item.getQuantity();
+            total += item.getPrice() * item.getQuantity();
+            if (Objects.equals(item.getProductId(), productId)) {
+                changed = item;
+            }
+        }
+        return new CartDeltaDTO(productId, changed, cart.getItems().size(), totalQuantity, total);
+    }
+}
@@ -16,6 +16,11 @@ public class CartItemDTO {
     private Integer quantity;
     private String imageUrl;
 
+    // Mismos tamaños que en el catálogo (ver ImageSrcset)
+    public String getSrcset() {
+        return ImageSrcset.of(imageUrl);
+    }
+
     public CartItemDTO() {}
 
     public CartItemDTO(Long id, Long productId, String productName, double price, Integer stock, Integer quantity, String imageUrl) {
@@ -0,0 +1,25 @@
+package com.ecommerce.template.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Una operación del PATCH /api/cart:
+// SET = dejar la cantidad exacta (0 borra la línea), INCREMENT = sumar (negativo resta), REMOVE = borrar la línea
+@Getter
+@Setter
+public class CartOperationDTO {
+
+    public enum Type { SET, INCREMENT, REMOVE }
+
+    private Type type;
+    private Long productId;
+    private Integer quantity;
+
+    public CartOperationDTO() {}
+
+    public CartOperationDTO(Type type, Long productId, Integer quantity) {
+        this.type = type;
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.template.dto;
+
+import lombok.Getter;
+
+// Vista liviana de categorías: solo la cantidad de productos, sin cargar las filas de productos
+@Getter
+public class CategorySummaryDTO {
+
+    private final Long id;
+    private final String name;
+    private final long productCount;
+
+    public CategorySummaryDTO(Long id, String name, long productCount) {
+        this.id = id;
+        this.name = name;
+        this.productCount = productCount;
+    }
+}
@@ -0,0 +1,49 @@
+package com.ecommerce.template.dto;
+
+import com.ecommerce.template.model.ImageVariant;
+
+import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Arma las URLs de cada tamaño a partir de la URL guardada en la entidad (Product.imageUrl, etc.).
+// Reconoce los dos formatos que producen los almacenamientos de ImageService, sin importar cuál esté
+// activo ahora: una imagen subida antes de cambiar de backend sigue teniendo sus tamaños.
+// Para URLs que no son nuestras (ej: foto de perfil de Google) devuelve null y el DTO omite el campo
+public final class ImageSrcset {
+
+    // Almacenamiento local: .../api/images/files/{sha256}/{variante}
+    private static final Pattern LOCAL = Pattern.compile("^(.*/api/images/files/[0-9a-f]{64})/[a-z]+$");
+
+    // Cloudinary: .../image/upload/[transformación nuestra/]v123/carpeta/archivo (también imágenes viejas sin hash)
+    private static final Pattern CLOUDINARY = Pattern.compile(
+            "^(https?://res\\.cloudinary\\.com/.+?/image/upload/)(?:c_limit,w_\\d+,f_auto,q_auto/)?(.+)$");
+
+    private ImageSrcset() {}
+
+    // URL de una variante, o null si la URL no es de un almacenamiento conocido
+    public static String url(String imageUrl, ImageVariant variant) {
+        if (imageUrl == null || imageUrl.isEmpty()) return null;
+
+        Matcher local = LOCAL.matcher(imageUrl);
+        if (local.matches()) return local.group(1) + "/" + variant.getName();
+
+        // f_auto: Cloudinary entrega WebP/AVIF a los navegadores que lo aceptan
+        Matcher cloudinary = CLOUDINARY.matcher(imageUrl);
+        if (cloudinary.matches()) {
+            return cloudinary.group(1) + "c_limit,w_" + variant.getWidth() + ",f_auto,q_auto/" + cloudinary.group(2);
+        }
+        return null;
+    }
+
+    // Valor listo para <img srcset>: "url 160w, url 480w, url 1200w"
+    public static String of(String imageUrl) {
+        if (url(imageUrl, ImageVariant.THUMB) == null) return null;
+
+        StringJoiner srcset = new StringJoiner(", ");
+        for (ImageVariant variant : ImageVariant.values()) {
+            srcset.add(url(imageUrl, variant) + " " + variant.getWidth() + "w");
+        }
+        return srcset.toString();
+    }
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.template.dto;
+
+import lombok.Getter;
+
+// Respuesta de POST /api/orders: { "order": { ...detalle... } } (el frontend navega con order.id)
+@Getter
+public class OrderCreatedDTO {
+
+    private final OrderDetailDTO order;
+
+    public OrderCreatedDTO(OrderDetailDTO order) {
+        this.order = order;
+    }
+}
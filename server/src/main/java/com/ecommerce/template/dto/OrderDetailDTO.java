@@ -0,0 +1,39 @@
+package com.ecommerce.template.dto;
+
+import com.ecommerce.template.model.OrderStatus;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Detalle de una orden con sus items (orden + usuario + items + productos en una consulta)
+@Getter
+public class OrderDetailDTO {
+
+    private final Long id;
+    private final LocalDateTime date;
+    private final BigDecimal total;
+    private final OrderStatus status;
+    private final String deliveryMethod;
+    private final String shippingAddress;
+    private final Long userId;
+    private final String username;
+    private final String email;
+    private final List<OrderItemDTO> items;
+
+    public OrderDetailDTO(Long id, LocalDateTime date, BigDecimal total, OrderStatus status, String deliveryMethod,
+                          String shippingAddress, Long userId, String username, String email, List<OrderItemDTO> items) {
+        this.id = id;
+        this.date = date;
+        this.total = total;
+        this.status = status;
+        this.deliveryMethod = deliveryMethod;
+        this.shippingAddress = shippingAddress;
+        this.userId = userId;
+        this.username = username;
+        this.email = email;
+        this.items = items;
+    }
+}
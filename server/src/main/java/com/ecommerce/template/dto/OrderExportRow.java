@@ -0,0 +1,47 @@
+package com.ecommerce.template.dto;
+
+import com.ecommerce.template.model.OrderStatus;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Una línea de la exportación: datos de la orden + un item (los campos del item son null si la orden no tiene items)
+@Getter
+public class OrderExportRow {
+
+    private final Long orderId;
+    private final LocalDateTime date;
+    private final OrderStatus status;
+    private final BigDecimal total;
+    private final String deliveryMethod;
+    private final String shippingAddress;
+    private final String username;
+    private final String email;
+    private final Long itemId;
+    private final Long productId;
+    private final String productName;
+    private final String productImageUrl;
+    private final Integer quantity;
+    private final BigDecimal price;
+
+    public OrderExportRow(Long orderId, LocalDateTime date, OrderStatus status, BigDecimal total, String deliveryMethod,
+                          String shippingAddress, String username, String email, Long itemId, Long productId,
+                          String productName, String productImageUrl, Integer quantity, BigDecimal price) {
+        this.orderId = orderId;
+        this.date = date;
+        this.status = status;
+        this.total = total;
+        this.deliveryMethod = deliveryMethod;
+        this.shippingAddress = shippingAddress;
+        this.username = username;
+        this.email = email;
+        this.itemId = itemId;
+        this.productId = productId;
+        this.productName = productName;
+        this.productImageUrl = productImageUrl;
+        this.quantity = quantity;
+        this.price = price;
+    }
+}
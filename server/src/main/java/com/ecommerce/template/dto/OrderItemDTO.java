@@ -0,0 +1,30 @@
+package com.ecommerce.template.dto;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+public class OrderItemDTO {
+
+    private final Long id;
+    private final Long productId;
+    private final String productName;
+    private final String imageUrl;
+    private final Integer quantity;
+    private final BigDecimal price; // Precio histórico (el de la compra, no el actual)
+
+    // Mismos tamaños que en el catálogo
+    public String getSrcset() {
+        return ImageSrcset.of(imageUrl);
+    }
+
+    public OrderItemDTO(Long id, Long productId, String productName, String imageUrl, Integer quantity, BigDecimal price) {
+        this.id = id;
+        this.productId = productId;
+        this.productName = productName;
+        this.imageUrl = imageUrl;
+        this.quantity = quantity;
+        this.price = price;
+    }
+}
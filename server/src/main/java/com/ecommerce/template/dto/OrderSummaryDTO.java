@@ -0,0 +1,36 @@
+package com.ecommerce.template.dto;
+
+import com.ecommerce.template.model.OrderStatus;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Fila del listado de órdenes: datos planos, sin items ni entidades (se arma con una sola consulta)
+@Getter
+public class OrderSummaryDTO {
+
+    private final Long id;
+    private final LocalDateTime date;
+    private final BigDecimal total;
+    private final OrderStatus status;
+    private final String deliveryMethod;
+    private final Long userId;
+    private final String username;
+    private final String email;
+    private final int itemCount;
+
+    public OrderSummaryDTO(Long id, LocalDateTime date, BigDecimal total, OrderStatus status, String deliveryMethod,
+                           Long userId, String username, String email, Integer itemCount) {
+        this.id = id;
+        this.date = date;
+        this.total = total;
+        this.status = status;
+        this.deliveryMethod = deliveryMethod;
+        this.userId = userId;
+        this.username = username;
+        this.email = email;
+        this.itemCount = itemCount != null ? itemCount : 0;
+    }
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.template.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+// Página genérica por número (page/size). hasNext se calcula pidiendo una fila extra, sin COUNT(*)
+@Getter
+public class PageDTO<T> {
+
+    private final List<T> items;
+    private final int page;
+    private final int size;
+    private final boolean hasNext;
+
+    public PageDTO(List<T> items, int page, int size, boolean hasNext) {
+        this.items = items;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+
+    // Recibe hasta size + 1 filas y recorta la extra
+    public static <T> PageDTO<T> fromRows(List<T> rows, int page, int size) {
+        boolean hasNext = rows.size() > size;
+        return new PageDTO<>(hasNext ? rows.subList(0, size) : rows, page, size, hasNext);
+    }
+
+    public static <T> PageDTO<T> fromSlice(Slice<T> slice) {
+        return new PageDTO<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext());
+    }
+}
@@ -11,6 +11,10 @@ import java.math.BigDecimal;
 public class ProductDTO {
     private Long id;
 
+    // Código del proveedor (opcional en el alta manual, obligatorio en la importación masiva)
+    @Size(max = 64, message = "El SKU no puede superar los 64 caracteres")
+    private String sku;
+
     @NotBlank(message = "El nombre del producto es obligatorio")
     @Size(min = 2, max = 100, message = "El nombre debe tener entre 2 y 100 caracteres")
     private String name;
@@ -35,6 +39,11 @@ public class ProductDTO {
 
     private Boolean active;
 
+    // Tamaños para <img srcset> (null si la imagen no es de nuestro almacenamiento)
+    public String getSrcset() {
+        return ImageSrcset.of(imageUrl);
+    }
+
     // Constructor vacío
     public ProductDTO() {}
 
@@ -0,0 +1,32 @@
+package com.ecommerce.template.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+// Resultado de una importación masiva: cuántas filas se leyeron, cuántas quedaron guardadas
+// y el detalle de las rechazadas (acotado a los primeros N errores)
+@Getter
+public class ProductImportResultDTO {
+
+    public record RowError(int line, String sku, String error) {}
+
+    private final long rows;
+    private final long imported;
+    private final long failed;
+    private final List<RowError> errors;
+    private final boolean errorsTruncated;
+    private final long elapsedMs;
+    private final long rowsPerSecond;
+
+    public ProductImportResultDTO(long rows, long imported, long failed, List<RowError> errors,
+                                  boolean errorsTruncated, long elapsedMs) {
+        this.rows = rows;
+        this.imported = imported;
+        this.failed = failed;
+        this.errors = errors;
+        this.errorsTruncated = errorsTruncated;
+        this.elapsedMs = elapsedMs;
+        this.rowsPerSecond = elapsedMs > 0 ? rows * 1000 / elapsedMs : rows;
+    }
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.template.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+// Página del catálogo paginado por cursor (keyset)
+// nextCursor es opaco para el frontend: solo hay que reenviarlo tal cual en ?cursor=
+@Getter
+public class ProductPageDTO {
+
+    private final List<ProductDTO> items;
+    private final String nextCursor;
+    private final boolean hasNext;
+
+    public ProductPageDTO(List<ProductDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+}
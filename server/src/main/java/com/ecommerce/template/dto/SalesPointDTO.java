@@ -0,0 +1,25 @@
+package com.ecommerce.template.dto;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Un punto de la serie de ventas de la tienda (un balde de hora o día)
+@Getter
+public class SalesPointDTO {
+
+    private final LocalDateTime bucketStart;
+    private final BigDecimal revenue;
+    private final long units;
+    private final long orderCount;
+    private final BigDecimal paidRevenue;
+
+    public SalesPointDTO(LocalDateTime bucketStart, BigDecimal revenue, Long units, Long orderCount, BigDecimal paidRevenue) {
+        this.bucketStart = bucketStart;
+        this.revenue = revenue;
+        this.units = units != null ? units : 0;
+        this.orderCount = orderCount != null ? orderCount : 0;
+        this.paidRevenue = paidRevenue;
+    }
+}
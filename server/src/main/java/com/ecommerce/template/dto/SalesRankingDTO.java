@@ -0,0 +1,24 @@
+package com.ecommerce.template.dto;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+// Ventas acumuladas de un producto o una categoría en un rango de días
+@Getter
+public class SalesRankingDTO {
+
+    private final Long id;
+    private final String name;
+    private final BigDecimal revenue;
+    private final long units;
+    private final BigDecimal paidRevenue;
+
+    public SalesRankingDTO(Long id, String name, BigDecimal revenue, Long units, BigDecimal paidRevenue) {
+        this.id = id;
+        this.name = name;
+        this.revenue = revenue;
+        this.units = units != null ? units : 0;
+        this.paidRevenue = paidRevenue;
+    }
+}
@@ -15,6 +15,11 @@ public class UserDTO {
     private AuthProvider provider;
     private String profilePictureUrl;
 
+    // Solo fotos subidas acá; las de Google quedan sin srcset (null)
+    public String getProfilePictureSrcset() {
+        return ImageSrcset.of(profilePictureUrl);
+    }
+
     public UserDTO( Long id, String username, String role, AuthProvider provider, String profilePictureUrl) {
         this.id = id;
         this.username = username;
@@ -6,6 +6,8 @@ import jakarta.persistence.*;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 @Entity
 @Table(name = "carts")
@@ -15,7 +17,7 @@ public class Cart {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY) // Solo se usa el id (el proxy lo conoce sin consultar users)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonIgnore
     private User user;
@@ -23,6 +25,10 @@ public class Cart {
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<CartItem> items = new ArrayList<>();
 
+    // Índice productId -> item (no se persiste): se arma una vez por request y evita recorrer la lista en cada búsqueda
+    @Transient
+    private Map<Long, CartItem> itemsByProduct;
+
     public Cart() {}
     public Cart(User user) {
         this.user = user;
@@ -48,5 +54,35 @@ public class Cart {
     }
     public void setItems(List<CartItem> items) {
         this.items = items;
+        this.itemsByProduct = null;
+    }
+
+    public CartItem findItem(Long productId) {
+        return index().get(productId);
+    }
+
+    public void addItem(CartItem item) {
+        items.add(item);
+        index().put(item.getProduct().getId(), item);
+    }
+
+    public void removeItem(CartItem item) {
+        items.remove(item);
+        index().remove(item.getProduct().getId());
+    }
+
+    public void clearItems() {
+        items.clear(); // orphanRemoval borra las filas al hacer flush
+        itemsByProduct = null;
+    }
+
+    private Map<Long, CartItem> index() {
+        if (itemsByProduct == null) {
+            itemsByProduct = new HashMap<>();
+            for (CartItem item : items) {
+                itemsByProduct.put(item.getProduct().getId(), item);
+            }
+        }
+        return itemsByProduct;
     }
 }
@@ -0,0 +1,27 @@
+package com.ecommerce.template.model;
+
+// Tamaños derivados de cada imagen subida (ancho máximo en px; se conserva la proporción y nunca se agranda)
+// El "name" es el que aparece en la URL de la variante
+public enum ImageVariant {
+    THUMB("thumb", 160),
+    CARD("card", 480),
+    DETAIL("detail", 1200);
+
+    private final String name;
+    private final int width;
+
+    ImageVariant(String name, int width) {
+        this.name = name;
+        this.width = width;
+    }
+
+    public String getName() { return name; }
+    public int getWidth() { return width; }
+
+    public static ImageVariant fromName(String name) {
+        for (ImageVariant variant : values()) {
+            if (variant.name.equals(name)) return variant;
+        }
+        return null;
+    }
+}
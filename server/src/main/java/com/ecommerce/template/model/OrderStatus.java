@@ -5,5 +5,10 @@ public enum OrderStatus {
     PAGADO,     // Ya tenemos la plata (o el comprobante)
     ENVIADO,    // Ya salió para la casa del cliente
     ENTREGADO,  // Finalizado
-    CANCELADO   // Algo salió mal
+    CANCELADO;  // Algo salió mal
+
+    // Estados en los que la plata ya entró (cuentan como venta cobrada en las métricas)
+    public boolean isPaid() {
+        return this == PAGADO || this == ENVIADO || this == ENTREGADO;
+    }
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.*;
 import lombok.Getter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Setter;
 
 import java.math.BigDecimal;
@@ -12,14 +14,26 @@ import java.math.BigDecimal;
 @Setter
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // Índices compuestos (orden, id) para el paginado keyset del catálogo
+        @Index(name = "idx_products_price_id", columnList = "price, id"),
+        @Index(name = "idx_products_name_id", columnList = "name, id"),
+        @Index(name = "idx_products_category", columnList = "category_id"),
+        // Clave de las importaciones masivas (INSERT ... ON CONFLICT (sku)); los productos cargados a mano pueden no tenerlo
+        @Index(name = "uk_products_sku", columnList = "sku", unique = true)
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+// Caché L2 read-write: las ediciones por JPA la actualizan con bloqueo; el stock por JDBC lo desaloja StockService
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product")
 public class Product {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(length = 64)
+    private String sku;
+
     @Column(nullable = false)
     private String name;
 
@@ -0,0 +1,43 @@
+package com.ecommerce.template.model;
+
+import org.springframework.data.domain.Sort;
+
+// Órdenes soportados por el catálogo (el valor "param" es lo que manda el frontend en ?sortOrder=)
+// Todos desempatan por id para que el orden sea ESTABLE (requisito del paginado por cursor)
+public enum ProductSortOrder {
+    DEFAULT(null, "id", true),
+    PRICE_ASC("price_asc", "price", true),
+    PRICE_DESC("price_desc", "price", false),
+    ALPHA_ASC("alpha_asc", "name", true),
+    ALPHA_DESC("alpha_desc", "name", false);
+
+    private final String param;
+    private final String property;
+    private final boolean ascending;
+
+    ProductSortOrder(String param, String property, boolean ascending) {
+        this.param = param;
+        this.property = property;
+        this.ascending = ascending;
+    }
+
+    public String getParam() { return param; }
+    public String getProperty() { return property; }
+    public boolean isAscending() { return ascending; }
+
+    // Valores desconocidos o nulos caen en DEFAULT (igual que antes con el switch)
+    public static ProductSortOrder fromParam(String param) {
+        if (param != null) {
+            for (ProductSortOrder order : values()) {
+                if (param.equals(order.param)) return order;
+            }
+        }
+        return DEFAULT;
+    }
+
+    public Sort toSort() {
+        if (this == DEFAULT) return Sort.unsorted();
+        Sort sort = Sort.by(property);
+        return ascending ? sort.ascending() : sort.descending();
+    }
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.template.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+// Tamaño del balde de los acumulados de ventas
+public enum RollupGranularity {
+    HOUR("hour", ChronoUnit.HOURS),
+    DAY("day", ChronoUnit.DAYS);
+
+    private final String truncUnit; // Unidad de date_trunc() en Postgres
+    private final ChronoUnit unit;
+
+    RollupGranularity(String truncUnit, ChronoUnit unit) {
+        this.truncUnit = truncUnit;
+        this.unit = unit;
+    }
+
+    public String getTruncUnit() {
+        return truncUnit;
+    }
+
+    public LocalDateTime bucketOf(LocalDateTime date) {
+        return date.truncatedTo(unit);
+    }
+
+    public LocalDateTime nextBucket(LocalDateTime bucketStart) {
+        return bucketStart.plus(1, unit);
+    }
+}
@@ -0,0 +1,58 @@
+package com.ecommerce.template.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Ventas pre-agregadas por balde (hora/día) y producto. Los tableros leen esta tabla
+// en vez de recorrer orders/order_items, así el costo depende de los días pedidos y no de las órdenes.
+// product_id = 0 es la fila total de la tienda (order_count ahí son órdenes distintas)
+@Getter
+@Setter
+@Entity
+@Table(name = "sales_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sales_rollups_bucket", columnNames = {"granularity", "bucket_start", "product_id"})
+}, indexes = {
+        @Index(name = "idx_sales_rollups_category", columnList = "granularity, category_id, bucket_start")
+})
+public class SalesRollup {
+
+    public static final long TOTAL_PRODUCT_ID = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupGranularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    // Órdenes no canceladas
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(nullable = false)
+    private Long units;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    // De esas, las ya cobradas (PAGADO, ENVIADO, ENTREGADO)
+    @Column(name = "paid_revenue", nullable = false, precision = 19, scale = 2)
+    private BigDecimal paidRevenue;
+
+    @Column(name = "paid_units", nullable = false)
+    private Long paidUnits;
+}
@@ -36,9 +36,9 @@ public class User implements UserDetails {
     @JsonIgnore
     private String password;
 
-    @OneToOne(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    @JsonIgnore
-    private Cart cart;
+    // Sin referencia inversa al carrito: un @OneToOne(mappedBy) no puede ser lazy y
+    // disparaba una consulta extra a carts por cada usuario cargado (login, listados de órdenes).
+    // El carrito se busca por CartRepository.findByUserId.
 
     private String role;
 
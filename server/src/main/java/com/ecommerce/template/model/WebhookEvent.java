@@ -0,0 +1,69 @@
+package com.ecommerce.template.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+// Notificación de MercadoPago persistida antes de procesarla (cola durable)
+// paymentId es único: las notificaciones repetidas del mismo pago se deduplican acá
+@Getter
+@Setter
+@Entity
+@Table(name = "webhook_events", indexes = {
+        @Index(name = "idx_webhook_events_status_next", columnList = "status, next_attempt_at")
+})
+public class WebhookEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "payment_id", nullable = false, unique = true)
+    private Long paymentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WebhookStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Último estado informado por MP ("approved", "pending", "rejected"...)
+    @Column(name = "payment_status")
+    private String paymentStatus;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    // MP avisó de nuevo mientras un worker lo procesaba: al terminar ese intento vuelve a la cola.
+    // Solo lo tocan las consultas UPDATE del repositorio (el save() del worker no lo pisa)
+    @ColumnDefault("false")
+    @Column(nullable = false, updatable = false)
+    private boolean redeliver;
+
+    public WebhookEvent() {}
+
+    public WebhookEvent(Long paymentId) {
+        LocalDateTime now = LocalDateTime.now();
+        this.paymentId = paymentId;
+        this.status = WebhookStatus.PENDIENTE;
+        this.receivedAt = now;
+        this.updatedAt = now;
+        this.nextAttemptAt = now;
+    }
+}
@@ -0,0 +1,8 @@
+package com.ecommerce.template.model;
+
+public enum WebhookStatus {
+    PENDIENTE,   // Recibido, esperando turno (o esperando un reintento)
+    PROCESANDO,  // Tomado por un worker
+    PROCESADO,   // Consultado en MP y aplicado a la orden
+    FALLIDO      // Se agotaron los reintentos (revisar lastError)
+}
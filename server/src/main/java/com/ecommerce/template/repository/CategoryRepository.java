@@ -1,6 +1,28 @@
 package com.ecommerce.template.repository;
 
+import com.ecommerce.template.dto.CategorySummaryDTO;
 import com.ecommerce.template.model.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-public interface CategoryRepository extends JpaRepository<Category, Long> {}
\ No newline at end of file
+import java.util.List;
+
+public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    // Consultas cacheables (caché de consultas de Hibernate): se invalidan solas cuando cambia
+    // cualquier fila de las tablas que leen
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Category> findAll(Sort sort);
+
+    // Una sola consulta con COUNT agrupado: nunca trae filas de productos
+    @Query("SELECT new com.ecommerce.template.dto.CategorySummaryDTO(c.id, c.name, COUNT(p)) " +
+            "FROM Category c LEFT JOIN c.products p " +
+            "GROUP BY c.id, c.name ORDER BY c.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<CategorySummaryDTO> findAllWithProductCount();
+}
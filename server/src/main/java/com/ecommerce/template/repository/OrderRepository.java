@@ -1,17 +1,90 @@
 package com.ecommerce.template.repository;
 
+import com.ecommerce.template.dto.OrderExportRow;
+import com.ecommerce.template.dto.OrderSummaryDTO;
 import com.ecommerce.template.model.Order;
+import com.ecommerce.template.model.OrderStatus;
 import com.ecommerce.template.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    String SUMMARY_SELECT = "SELECT new com.ecommerce.template.dto.OrderSummaryDTO(" +
+            "o.id, o.date, o.total, o.status, o.deliveryMethod, u.id, u.username, u.email, SIZE(o.items)) " +
+            "FROM Order o JOIN o.user u ";
+
+    String SUMMARY_FILTERS = "(:status IS NULL OR o.status = :status) AND " +
+            "(:from IS NULL OR o.date >= :from) AND " +
+            "(:to IS NULL OR o.date < :to) " +
+            "ORDER BY o.date DESC, o.id DESC";
+
+    // Orden + un item por fila (los campos del item son null si la orden no tiene items)
+    String ROW_SELECT = "SELECT new com.ecommerce.template.dto.OrderExportRow(" +
+            "o.id, o.date, o.status, o.total, o.deliveryMethod, o.shippingAddress, u.username, u.email, " +
+            "i.id, p.id, p.name, p.imageUrl, i.quantity, i.price) " +
+            "FROM Order o JOIN o.user u LEFT JOIN o.items i LEFT JOIN i.product p ";
+
     // Buscar todas las órdenes de un usuario específico (para el historial)
     List<Order> findByUser(User user);
     
-    // Ordenar por fecha descendente (las más nuevas primero)
-    List<Order> findByUserOrderByDateDesc(User user);
-}
\ No newline at end of file
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
+    Optional<Order> findWithDetailsById(Long id);
+
+    // Listados paginados: Slice pide size + 1 filas para saber si hay más (sin COUNT(*))
+    // Usan los índices (user_id, date) y (status, date) de la tabla orders
+    @Query(SUMMARY_SELECT + "WHERE o.user.id = :userId AND " + SUMMARY_FILTERS)
+    Slice<OrderSummaryDTO> findSummariesByUser(
+            @Param("userId") Long userId,
+            @Param("status") OrderStatus status,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE " + SUMMARY_FILTERS)
+    Slice<OrderSummaryDTO> findSummaries(
+            @Param("status") OrderStatus status,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            Pageable pageable);
+
+    // Exportación: cursor de solo avance con fetch size fijo (hay que consumirlo dentro de una transacción
+    // y cerrarlo). Proyección a DTO: no se cargan entidades, así que el contexto de persistencia no crece
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(ROW_SELECT + "WHERE " +
+            "(:status IS NULL OR o.status = :status) AND " +
+            "(:from IS NULL OR o.date >= :from) AND " +
+            "(:to IS NULL OR o.date < :to) " +
+            "ORDER BY o.id, i.id")
+    Stream<OrderExportRow> streamExportRows(
+            @Param("status") OrderStatus status,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    // Listados completos (GET /api/orders y /my-orders) con el mismo cursor, las más nuevas primero.
+    // userId null = todas las órdenes (admin)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(ROW_SELECT + "WHERE (:userId IS NULL OR u.id = :userId) ORDER BY o.date DESC, o.id DESC, i.id")
+    Stream<OrderExportRow> streamListRows(@Param("userId") Long userId);
+}
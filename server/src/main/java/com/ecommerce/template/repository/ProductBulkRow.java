@@ -0,0 +1,12 @@
+package com.ecommerce.template.repository;
+
+import java.math.BigDecimal;
+
+// Proyección para la vista previa de los ajustes masivos (solo lo que se muestra antes/después)
+public interface ProductBulkRow {
+    Long getId();
+    String getSku();
+    String getName();
+    BigDecimal getPrice();
+    Integer getStock();
+}
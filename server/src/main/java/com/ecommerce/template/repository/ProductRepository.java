@@ -1,19 +1,46 @@
 package com.ecommerce.template.repository;
 
+import com.ecommerce.template.dto.ProductDTO;
 import com.ecommerce.template.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 import java.util.List;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+
+        // Documento de búsqueda (nombre + descripción). Tiene que ser IDÉNTICO a la expresión
+        // del índice GIN que crea SchemaInitializer, si no Postgres no lo usa
+        String SEARCH_DOCUMENT = "to_tsvector('spanish', coalesce(p.name, '') || ' ' || coalesce(p.description, ''))";
+
+        // Búsqueda por nombre: el término llega con los comodines de LIKE escapados (containsPattern), así
+        // "50%" o "a_b" se buscan literales, igual que compara CatalogQueryKey al invalidar
+        String LIKE_ESCAPE = "ESCAPE '!'";
+
+        static String containsPattern(String term) {
+                return "%" + term.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        }
+
+        // Filtro de los ajustes masivos de precio; el UPDATE, el conteo y la vista previa usan exactamente el mismo
+        String BULK_FILTER = "(:categoryId IS NULL OR p.category.id = :categoryId) AND " +
+                        "(:name IS NULL OR LOWER(p.name) LIKE :name " + LIKE_ESCAPE + ") AND " +
+                        "(:active IS NULL OR p.active = :active)";
+
+        // Precio nuevo redondeado a centavos. Parámetros enteros (factor en puntos básicos: 8500 = -15%;
+        // delta en centavos) para que Hibernate no les infiera la escala de la columna y recorte el porcentaje
+        String ADJUSTED_PRICE = "ROUND((p.price * :factor + :delta * 100) / 10000, 2)";
 
         // CAMBIO CLAVE: Quitamos LOWER() alrededor de :name
         // Ahora comparamos: LOWER(columna) LIKE :name (que ya vendrá en minúsculas
         // desde Java)
-        @Query("SELECT p FROM Product p WHERE " +
-                        "(:name IS NULL OR LOWER(p.name) LIKE :name) AND " +
+        // JOIN FETCH de la categoría: convertToDTO la lee en cada fila y así no dispara un SELECT por producto
+        @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE " +
+                        "(:name IS NULL OR LOWER(p.name) LIKE :name " + LIKE_ESCAPE + ") AND " +
                         "(:categoryId IS NULL OR p.category.id = :categoryId) AND " +
                         "(:minStock IS NULL OR p.stock >= :minStock) AND " +
                         "(:active IS NULL OR p.active = :active)")
@@ -23,4 +50,66 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
                         @Param("minStock") Integer minStock,
                         @Param("active") Boolean active,
                         Sort sort);
-}
\ No newline at end of file
+
+        // Todo el catálogo proyectado a DTO en una consulta (la categoría viene en el mismo JOIN)
+        @Query("SELECT new com.ecommerce.template.dto.ProductDTO(" +
+                        "p.id, p.name, p.price, p.stock, c.name, c.id, p.imageUrl, p.description, p.active) " +
+                        "FROM Product p JOIN p.category c ORDER BY p.id")
+        List<ProductDTO> findAllAsDTO();
+
+        boolean existsByCategoryId(Long categoryId);
+
+        // Búsqueda full-text rankeada: tsvector (con prefijos) + similitud trigram sobre el nombre (tolera typos)
+        // Usa los índices GIN idx_products_search e idx_products_name_trgm en lugar de un seq scan
+        @Query(value = "SELECT p.id AS id, p.name AS name, p.price AS price, p.stock AS stock, " +
+                        "c.name AS categoryName, c.id AS categoryId, p.image_url AS imageUrl, " +
+                        "p.description AS description, p.is_active AS active " +
+                        "FROM products p JOIN categories c ON c.id = p.category_id " +
+                        "WHERE p.is_active = true AND (" + SEARCH_DOCUMENT + " @@ to_tsquery('spanish', :tsQuery) " +
+                        "OR lower(p.name) % :term) " +
+                        "ORDER BY ts_rank(" + SEARCH_DOCUMENT + ", to_tsquery('spanish', :tsQuery)) " +
+                        "+ similarity(lower(p.name), :term) DESC, p.id " +
+                        "LIMIT :limit OFFSET :offset", nativeQuery = true)
+        List<ProductSearchRow> searchRanked(
+                        @Param("tsQuery") String tsQuery,
+                        @Param("term") String term,
+                        @Param("limit") int limit,
+                        @Param("offset") long offset);
+
+        // Ajuste masivo en UNA sentencia: no carga entidades. Solo toca products; los OrderItem guardan su propio precio
+        @Modifying
+        @Query("UPDATE Product p SET p.price = " + ADJUSTED_PRICE + " WHERE " + BULK_FILTER)
+        int adjustPrices(
+                        @Param("factor") long factor,
+                        @Param("delta") long delta,
+                        @Param("categoryId") Long categoryId,
+                        @Param("name") String name,
+                        @Param("active") Boolean active);
+
+        @Query("SELECT COUNT(p) FROM Product p WHERE " + BULK_FILTER)
+        long countForBulk(
+                        @Param("categoryId") Long categoryId,
+                        @Param("name") String name,
+                        @Param("active") Boolean active);
+
+        // Productos que quedarían con precio <= 0 (el ajuste se rechaza entero si hay alguno)
+        @Query("SELECT COUNT(p) FROM Product p WHERE " + BULK_FILTER + " AND " + ADJUSTED_PRICE + " <= 0")
+        long countNonPositiveAfterAdjust(
+                        @Param("factor") long factor,
+                        @Param("delta") long delta,
+                        @Param("categoryId") Long categoryId,
+                        @Param("name") String name,
+                        @Param("active") Boolean active);
+
+        @Query("SELECT p.id AS id, p.sku AS sku, p.name AS name, p.price AS price, p.stock AS stock " +
+                        "FROM Product p WHERE " + BULK_FILTER + " ORDER BY p.id")
+        List<ProductBulkRow> findBulkPreview(
+                        @Param("categoryId") Long categoryId,
+                        @Param("name") String name,
+                        @Param("active") Boolean active,
+                        Pageable pageable);
+
+        @Query("SELECT p.id AS id, p.sku AS sku, p.name AS name, p.price AS price, p.stock AS stock " +
+                        "FROM Product p WHERE p.sku IN :skus")
+        List<ProductBulkRow> findBulkRowsBySku(@Param("skus") Collection<String> skus);
+}
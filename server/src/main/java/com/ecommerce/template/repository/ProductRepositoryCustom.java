@@ -0,0 +1,28 @@
+package com.ecommerce.template.repository;
+
+import com.ecommerce.template.dto.ProductDTO;
+import com.ecommerce.template.model.Product;
+import com.ecommerce.template.model.ProductSortOrder;
+
+import java.util.Collection;
+import java.util.List;
+
+// Consultas que se arman dinámicamente (no entran en un @Query fijo)
+public interface ProductRepositoryCustom {
+
+    // Paginado por cursor (keyset): devuelve hasta 'limit' filas DESPUÉS de (afterValue, afterId)
+    // Si afterId es null arranca desde la primera página
+    List<ProductDTO> findPageWithFilters(
+            String name,
+            Long categoryId,
+            Integer minStock,
+            Boolean active,
+            ProductSortOrder sortOrder,
+            Object afterValue,
+            Long afterId,
+            int limit);
+
+    // Como findAllById, pero resuelve primero desde la caché de segundo nivel y solo consulta los que faltan
+    // (findAllById siempre arma un SELECT ... IN). Los ids inexistentes se omiten
+    List<Product> loadAllById(Collection<Long> ids);
+}
@@ -0,0 +1,94 @@
+package com.ecommerce.template.repository;
+
+import com.ecommerce.template.dto.ProductDTO;
+import com.ecommerce.template.model.Product;
+import com.ecommerce.template.model.ProductSortOrder;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+// Spring Data detecta esta clase por el sufijo "Impl" y la mezcla con ProductRepository
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductDTO> findPageWithFilters(
+            String name,
+            Long categoryId,
+            Integer minStock,
+            Boolean active,
+            ProductSortOrder sortOrder,
+            Object afterValue,
+            Long afterId,
+            int limit) {
+
+        // Proyección directa al DTO con la categoría en el mismo JOIN (nada de cargas lazy por fila)
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.ecommerce.template.dto.ProductDTO(" +
+                        "p.id, p.name, p.price, p.stock, c.name, c.id, p.imageUrl, p.description, p.active) " +
+                        "FROM Product p JOIN p.category c WHERE 1 = 1");
+
+        // Solo agregamos los filtros presentes, así el planner puede usar los índices
+        if (name != null) jpql.append(" AND LOWER(p.name) LIKE :name ").append(ProductRepository.LIKE_ESCAPE);
+        if (categoryId != null) jpql.append(" AND c.id = :categoryId");
+        if (minStock != null) jpql.append(" AND p.stock >= :minStock");
+        if (active != null) jpql.append(" AND p.active = :active");
+
+        String direction = sortOrder.isAscending() ? "ASC" : "DESC";
+        String comparator = sortOrder.isAscending() ? ">" : "<";
+
+        // Condición keyset: "todo lo que viene después de la última fila vista"
+        // Cuesta lo mismo en la página 1 que en la 1000 (no hay OFFSET)
+        if (afterId != null) {
+            if (sortOrder == ProductSortOrder.DEFAULT) {
+                jpql.append(" AND p.id > :afterId");
+            } else {
+                String property = "p." + sortOrder.getProperty();
+                jpql.append(" AND (").append(property).append(' ').append(comparator).append(" :afterValue")
+                        .append(" OR (").append(property).append(" = :afterValue AND p.id ")
+                        .append(comparator).append(" :afterId))");
+            }
+        }
+
+        if (sortOrder == ProductSortOrder.DEFAULT) {
+            jpql.append(" ORDER BY p.id ASC");
+        } else {
+            jpql.append(" ORDER BY p.").append(sortOrder.getProperty()).append(' ').append(direction)
+                    .append(", p.id ").append(direction);
+        }
+
+        TypedQuery<ProductDTO> query = entityManager.createQuery(jpql.toString(), ProductDTO.class);
+
+        if (name != null) query.setParameter("name", name);
+        if (categoryId != null) query.setParameter("categoryId", categoryId);
+        if (minStock != null) query.setParameter("minStock", minStock);
+        if (active != null) query.setParameter("active", active);
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+            if (sortOrder != ProductSortOrder.DEFAULT) query.setParameter("afterValue", afterValue);
+        }
+
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    // Los métodos propios no heredan la transacción de SimpleJpaRepository: sin esto no habría sesión abierta
+    @Override
+    @Transactional(readOnly = true)
+    public List<Product> loadAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(Product.class)
+                .multiLoad(List.copyOf(ids)).stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
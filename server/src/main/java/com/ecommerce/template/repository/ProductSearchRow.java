@@ -0,0 +1,16 @@
+package com.ecommerce.template.repository;
+
+import java.math.BigDecimal;
+
+// Proyección de la búsqueda full-text (los alias del SELECT nativo coinciden con los getters)
+public interface ProductSearchRow {
+    Long getId();
+    String getName();
+    BigDecimal getPrice();
+    Integer getStock();
+    String getCategoryName();
+    Long getCategoryId();
+    String getImageUrl();
+    String getDescription();
+    Boolean getActive();
+}
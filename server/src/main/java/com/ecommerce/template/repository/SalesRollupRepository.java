@@ -0,0 +1,43 @@
+package com.ecommerce.template.repository;
+
+import com.ecommerce.template.dto.SalesPointDTO;
+import com.ecommerce.template.dto.SalesRankingDTO;
+import com.ecommerce.template.model.RollupGranularity;
+import com.ecommerce.template.model.SalesRollup;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Solo lecturas: las escrituras son upserts por JDBC en SalesRollupService
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+
+    // Serie de la tienda (filas total, product_id = 0)
+    @Query("SELECT new com.ecommerce.template.dto.SalesPointDTO(r.bucketStart, r.revenue, r.units, r.orderCount, r.paidRevenue) " +
+            "FROM SalesRollup r WHERE r.granularity = :granularity AND r.productId = 0 " +
+            "AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<SalesPointDTO> findSeries(
+            @Param("granularity") RollupGranularity granularity,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    @Query("SELECT new com.ecommerce.template.dto.SalesRankingDTO(r.productId, p.name, SUM(r.revenue), SUM(r.units), SUM(r.paidRevenue)) " +
+            "FROM SalesRollup r LEFT JOIN Product p ON p.id = r.productId " +
+            "WHERE r.granularity = com.ecommerce.template.model.RollupGranularity.DAY AND r.productId <> 0 " +
+            "AND r.bucketStart >= :from AND r.bucketStart < :to " +
+            "GROUP BY r.productId, p.name ORDER BY SUM(r.revenue) DESC, r.productId")
+    List<SalesRankingDTO> findTopProducts(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+
+    @Query("SELECT new com.ecommerce.template.dto.SalesRankingDTO(r.categoryId, c.name, SUM(r.revenue), SUM(r.units), SUM(r.paidRevenue)) " +
+            "FROM SalesRollup r LEFT JOIN Category c ON c.id = r.categoryId " +
+            "WHERE r.granularity = com.ecommerce.template.model.RollupGranularity.DAY AND r.productId <> 0 " +
+            "AND r.bucketStart >= :from AND r.bucketStart < :to " +
+            "GROUP BY r.categoryId, c.name ORDER BY SUM(r.revenue) DESC, r.categoryId")
+    List<SalesRankingDTO> findCategorySales(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,53 @@
+package com.ecommerce.template.repository;
+
+import com.ecommerce.template.model.WebhookEvent;
+import com.ecommerce.template.model.WebhookStatus;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long> {
+
+    Optional<WebhookEvent> findByPaymentId(Long paymentId);
+
+    @Query("SELECT e.id FROM WebhookEvent e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt")
+    List<Long> findDueIds(@Param("status") WebhookStatus status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    // "Tomar" un evento: solo gana quien lo pasa de PENDIENTE a PROCESANDO (aunque haya varias instancias)
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WebhookEvent e SET e.status = com.ecommerce.template.model.WebhookStatus.PROCESANDO, e.updatedAt = :now, " +
+            "e.redeliver = false " +
+            "WHERE e.id = :id AND e.status = com.ecommerce.template.model.WebhookStatus.PENDIENTE")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Eventos que quedaron PROCESANDO porque la app se cayó a mitad de camino vuelven a la cola
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.ecommerce.template.model.WebhookStatus.PENDIENTE " +
+            "WHERE e.status = com.ecommerce.template.model.WebhookStatus.PROCESANDO AND e.updatedAt < :cutoff")
+    int requeueStale(@Param("cutoff") LocalDateTime cutoff);
+
+    // Notificación que llega mientras el evento está PROCESANDO: solo se marca si sigue en ese estado
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.redeliver = true " +
+            "WHERE e.id = :id AND e.status = com.ecommerce.template.model.WebhookStatus.PROCESANDO")
+    int markRedeliver(@Param("id") Long id);
+
+    // Al terminar el intento: si llegó otra notificación mientras tanto, el evento vuelve a la cola desde cero
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.ecommerce.template.model.WebhookStatus.PENDIENTE, " +
+            "e.attempts = 0, e.nextAttemptAt = :now, e.updatedAt = :now, e.redeliver = false " +
+            "WHERE e.id = :id AND e.redeliver = true")
+    int requeueIfRedelivered(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,53 @@
+package com.ecommerce.template.security;
+
+import com.ecommerce.template.model.User;
+import com.ecommerce.template.repository.UserRepository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+// Caché chico de usuarios autenticados (username -> User) para los casos en que el token
+// no alcanza para armar el principal (tokens viejos sin "uid").
+// Hay que invalidarlo cuando cambian datos del usuario (perfil, foto, password, rol)
+@Component
+public class AuthenticatedUserCache implements MeterBinder {
+
+    private final UserRepository userRepository;
+    private final Cache<String, User> users;
+
+    public AuthenticatedUserCache(
+            UserRepository userRepository,
+            @Value("${auth.user-cache.max-entries:10000}") long maxEntries,
+            @Value("${auth.user-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<User> get(String username) {
+        // Los "no encontrado" no se cachean (get devuelve null y Caffeine no guarda nada)
+        return Optional.ofNullable(users.get(username, key -> userRepository.findByUsername(key).orElse(null)));
+    }
+
+    public void invalidate(String username) {
+        if (username != null) users.invalidate(username);
+    }
+
+    // Hit ratio y tamaño en cache.* (cache="auth.users")
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, users, "auth.users");
+    }
+}
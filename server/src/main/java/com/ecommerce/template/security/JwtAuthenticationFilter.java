@@ -1,9 +1,10 @@
 package com.ecommerce.template.security;
 
 import com.ecommerce.template.model.User;
-import com.ecommerce.template.repository.UserRepository;
-import com.ecommerce.template.service.CartService;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -28,7 +29,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private UserRepository userRepository;
+    private AuthenticatedUserCache authenticatedUserCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @Override
     protected void doFilterInternal(
@@ -40,24 +44,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             String authHeader = request.getHeader("Authorization");
-            String token = null;
-            String username = null;
 
-            if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                token = authHeader.substring(7);
-                username = jwtUtil.extractUsername(token);
-            }
+            if (authHeader != null && authHeader.startsWith("Bearer ")
+                    && SecurityContextHolder.getContext().getAuthentication() == null) {
+                // Tiempo de validación en auth.jwt.validation; outcome queda en "invalid" si parseClaims tira
+                Timer.Sample sample = Timer.start(meterRegistry);
+                String outcome = "invalid";
+                try {
+                    // Firma + expiración se verifican UNA vez acá (si falla, salta al catch)
+                    Claims claims = jwtUtil.parseClaims(authHeader.substring(7));
+                    User user = resolvePrincipal(claims);
+                    outcome = user != null ? "valid" : "unknown_user";
 
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                User user = userRepository.findByUsername(username).orElse(null);
-
-                if (user != null && jwtUtil.validateToken(token, username)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            user,
-                            null,
-                            user.getAuthorities());
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                    if (user != null) {
+                        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                                user,
+                                null,
+                                user.getAuthorities());
+                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        SecurityContextHolder.getContext().setAuthentication(authToken);
+                    }
+                } finally {
+                    sample.stop(Timer.builder("auth.jwt.validation")
+                            .tag("outcome", outcome)
+                            .publishPercentileHistogram()
+                            .register(meterRegistry));
                 }
             }
         } catch (Exception e) {
@@ -70,4 +81,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Continuar con la cadena de filtros
         filterChain.doFilter(request, response);
     }
+
+    // Camino rápido: el token ya trae id y rol, armamos el principal sin tocar la base
+    // Tokens viejos (sin "uid") caen al caché de usuarios, que consulta la base solo la primera vez
+    private User resolvePrincipal(Claims claims) {
+        String username = claims.getSubject();
+        if (username == null) return null;
+
+        Long userId = claims.get(JwtUtil.CLAIM_USER_ID, Long.class);
+        String role = claims.get(JwtUtil.CLAIM_ROLE, String.class);
+        if (userId == null || role == null) {
+            return authenticatedUserCache.get(username).orElse(null);
+        }
+
+        User user = new User();
+        user.setId(userId);
+        user.setUsername(username);
+        user.setRole(role);
+        String imageUrl = claims.get(JwtUtil.CLAIM_IMAGE_URL, String.class);
+        user.setProfilePictureUrl(imageUrl != null && !imageUrl.isEmpty() ? imageUrl : null);
+        return user;
+    }
 }
\ No newline at end of file
@@ -1,21 +1,46 @@
 package com.ecommerce.template.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
-public class JwtUtil {
+public class JwtUtil implements MeterBinder {
+
+    // Claims propios que viajan en el token (además de "sub" = username)
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_IMAGE_URL = "imageUrl";
 
     // Inyectamos la clave desde application.properties
     @Value("${jwt.secret}")
@@ -23,20 +48,57 @@ public class JwtUtil {
 
     private SecretKey secretKey;
 
+    // El parser es inmutable y thread-safe: lo armamos una sola vez y lo reutilizamos en cada request
+    private JwtParser parser;
+
+    // Caché de tokens ya verificados: hash SHA-256 del token -> claims
+    // Cada entrada vence junto con el token ("exp"), así nunca se acepta un token expirado
+    @Value("${jwt.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${jwt.cache.max-entries:10000}")
+    private long cacheMaxEntries;
+
+    private Cache<String, Claims> verifiedTokens;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Tiempo gastado en verificaciones reales (firma HMAC + decode JSON), o sea en los misses
+    private Timer verificationTimer;
+
     // Inicializamos la llave una vez que Spring haya inyectado el valor
     @PostConstruct
     public void init() {
         // Transformamos el texto en una llave criptográfica
         this.secretKey = Keys.hmacShaKeyFor(secretString.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(secretKey) // Validamos con la misma clave fija
+                .build();
+        this.verificationTimer = Timer.builder("auth.jwt.verification")
+                .description("Verificación real de firma y claims (misses del caché de tokens)")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        // El mantenimiento (desalojo/expiración) corre en el commonPool y el scheduler del sistema,
+        // nunca en el hilo del request. Solo entran claims con "exp" (verify rechaza los que no lo traen)
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfter(Expiry.creating((String hash, Claims claims) ->
+                        Duration.ofMillis(Math.max(0, claims.getExpiration().getTime() - System.currentTimeMillis()))))
+                .executor(ForkJoinPool.commonPool())
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats()
+                .build();
     }
 
     // Token válido por 10 horas
     private final long expiration = 1000 * 60 * 60 * 10;
 
-    public String generateToken(String username, String role, String imageUrl) {
+    public String generateToken(Long userId, String username, String role, String imageUrl) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("role", role);
-        claims.put("imageUrl", imageUrl != null ? imageUrl : "");
+        claims.put(CLAIM_USER_ID, userId);
+        claims.put(CLAIM_ROLE, role);
+        claims.put(CLAIM_IMAGE_URL, imageUrl != null ? imageUrl : "");
         return createToken(claims, username);
     }
 
@@ -50,33 +112,63 @@ public class JwtUtil {
                 .compact();
     }
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    // Verifica firma y expiración UNA sola vez y devuelve los claims
+    // (jjwt lanza ExpiredJwtException / JwtException si el token no sirve; los tokens inválidos no se cachean)
+    public Claims parseClaims(String token) {
+        if (!cacheEnabled) return verify(token);
+        return verifiedTokens.get(hash(token), key -> verify(token));
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    // Un token sin "exp" no vencería nunca (ni en el caché): se rechaza como cualquier token inválido
+    private Claims verify(String token) {
+        Claims claims = verificationTimer.record(() -> parser.parseSignedClaims(token).getPayload());
+        if (claims.getExpiration() == null) {
+            throw new JwtException("El token no tiene expiración");
+        }
+        return claims;
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey) // Validamos con la misma clave fija
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    // La clave del caché es el hash, no el token en sí (no dejamos credenciales enteras en memoria)
+    private String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
     }
 
-    public boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+    // Hit ratio, tamaño y desalojos en cache.* (cache="auth.jwt.tokens"); latencia en auth.jwt.verification
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, verifiedTokens, "auth.jwt.tokens");
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public Map<String, Object> cacheStats() {
+        CacheStats stats = verifiedTokens.stats();
+        long count = verificationTimer.count();
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("enabled", cacheEnabled);
+        data.put("size", verifiedTokens.estimatedSize());
+        data.put("hits", stats.hitCount());
+        data.put("misses", stats.missCount());
+        data.put("hitRate", stats.hitRate());
+        data.put("evictions", stats.evictionCount());
+        data.put("verifications", count);
+        data.put("avgVerificationMicros", (long) verificationTimer.mean(TimeUnit.MICROSECONDS));
+        return data;
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public String extractUsername(String token) {
+        return extractClaim(token, Claims::getSubject);
+    }
+
+    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+        return claimsResolver.apply(parseClaims(token));
+    }
+
+    public boolean validateToken(String token, String username) {
+        Claims claims = parseClaims(token);
+        return claims.getSubject().equals(username) && claims.getExpiration().after(new Date());
     }
-}
\ No newline at end of file
+}
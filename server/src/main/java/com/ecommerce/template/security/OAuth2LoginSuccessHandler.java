@@ -56,7 +56,7 @@ public class OAuth2LoginSuccessHandler extends SimpleUrlAuthenticationSuccessHan
                 });
         
         // Generamos el Token JWT
-        String token = jwtUtil.generateToken(user.getUsername(), user.getRole(), user.getProfilePictureUrl());
+        String token = jwtUtil.generateToken(user.getId(), user.getUsername(), user.getRole(), user.getProfilePictureUrl());
 
         // Redirigimos al Frontend con el token en la URL
         getRedirectStrategy().sendRedirect(request, response, frontendUrl + "/oauth/callback?token=" + token + "&username=" + email);
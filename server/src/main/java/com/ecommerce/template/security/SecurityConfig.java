@@ -41,6 +41,13 @@ public class SecurityConfig {
     @Value("${cors.allowed-origins}")
     private String corsAllowedOrigins;
 
+    // Puerto interno de actuator (MANAGEMENT_SERVER_PORT); si no está definido, actuator comparte el puerto público
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration config = new CorsConfiguration();
@@ -74,7 +81,15 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/products/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/categories").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/categories/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/images/files/**").permitAll() // Imágenes del almacenamiento local
                         .requestMatchers(HttpMethod.POST, "/api/orders/webhook").permitAll() // Webhook MP
+                        // Health para el orquestador
+                        .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+                        // Scrape de Prometheus: libre solo por el puerto interno de management; en el público, solo ADMIN
+                        .requestMatchers(request -> managementPort > 0 && managementPort != serverPort
+                                && request.getLocalPort() == managementPort
+                                && "/actuator/prometheus".equals(request.getRequestURI())).permitAll()
+                        .requestMatchers(HttpMethod.GET, "/actuator/prometheus").hasRole("ADMIN")
                         
                         // 2. Rutas de USUARIO
                         .requestMatchers(HttpMethod.POST, "/api/orders").authenticated()
@@ -88,8 +103,12 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.POST, "/api/categories/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.POST, "/api/images/upload").hasRole("ADMIN")
                         
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+
                         // Gestión de Órdenes Admin
                         .requestMatchers(HttpMethod.GET, "/api/orders").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/orders/page").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/orders/export").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PATCH, "/api/orders/**").authenticated()
 
                         // 4. Todo lo demás requiere login
@@ -48,7 +48,7 @@ public class AuthService {
         userRepository.save(user);
         logger.info("✅ [AUTH] Usuario registrado con éxito: '{}' (ID: {})", email, user.getId());
 
-        return jwtUtil.generateToken(user.getUsername(), user.getRole(), user.getProfilePictureUrl());
+        return jwtUtil.generateToken(user.getId(), user.getUsername(), user.getRole(), user.getProfilePictureUrl());
     }
 
     public String login(String email, String password) {
@@ -63,7 +63,7 @@ public class AuthService {
             User user = userRepository.findByEmail(email).orElseThrow();
 
             logger.info("✅ [AUTH] Login exitoso: {}", user.getUsername());
-            return jwtUtil.generateToken(user.getUsername(), user.getRole(), user.getProfilePictureUrl());
+            return jwtUtil.generateToken(user.getId(), user.getUsername(), user.getRole(), user.getProfilePictureUrl());
         } catch (Exception e) {
             logger.error("❌ [AUTH] Credenciales inválidas para: {}", email);
             throw e;
@@ -0,0 +1,42 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.CartOperationDTO;
+
+import java.util.List;
+
+// Reglas de las operaciones en lote, compartidas por los dos stores de carrito
+final class CartOperations {
+
+    static final int MAX_BATCH_OPERATIONS = 100;
+
+    private CartOperations() {}
+
+    static void validate(List<CartOperationDTO> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new RuntimeException("No hay operaciones para aplicar");
+        }
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new RuntimeException("Máximo " + MAX_BATCH_OPERATIONS + " operaciones por pedido");
+        }
+        for (CartOperationDTO operation : operations) {
+            if (operation.getType() == null || operation.getProductId() == null) {
+                throw new RuntimeException("Cada operación necesita 'type' y 'productId'");
+            }
+            if (operation.getType() != CartOperationDTO.Type.REMOVE && operation.getQuantity() == null) {
+                throw new RuntimeException("La operación " + operation.getType() + " necesita 'quantity'");
+            }
+            if (operation.getType() == CartOperationDTO.Type.SET && operation.getQuantity() < 0) {
+                throw new RuntimeException("La cantidad no puede ser negativa");
+            }
+        }
+    }
+
+    // Cantidad final de la línea después de aplicar la operación (0 o menos = borrar la línea)
+    static int targetQuantity(CartOperationDTO operation, int current) {
+        return switch (operation.getType()) {
+            case SET -> operation.getQuantity();
+            case INCREMENT -> current + operation.getQuantity();
+            case REMOVE -> 0;
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.CartDTO;
+import com.ecommerce.template.dto.CartOperationDTO;
+import com.ecommerce.template.model.User;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+// Dónde viven los carritos mientras el usuario compra (propiedad cart.store):
+// - jpa (por defecto): JpaCartStore, cada clic es una escritura en Postgres
+// - write-behind: WriteBehindCartStore, en memoria y volcado a Postgres en lotes
+public interface CartStore {
+
+    CartDTO getCart(User user);
+
+    CartDTO addItem(User user, Long productId, Integer quantity);
+
+    CartDTO removeOne(User user, Long productId);
+
+    CartDTO removeItem(User user, Long productId);
+
+    CartDTO clearCart(User user);
+
+    CartDTO applyOperations(User user, List<CartOperationDTO> operations);
+
+    // Deja escrito en la base el estado actual del carrito (el checkout lee de carts/cart_items)
+    default void flush(Long userId) {}
+
+    // Olvida la copia en memoria (después del checkout el carrito se vació en la base)
+    default void evict(Long userId) {}
+
+    // Checkout: deja el carrito escrito en la base y arma la orden (placeOrder abre y commitea su transacción)
+    default <T> T checkout(Long userId, Supplier<T> placeOrder) {
+        flush(userId);
+        return placeOrder.get();
+    }
+}
@@ -0,0 +1,176 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.CategoryDTO;
+import com.ecommerce.template.dto.CategorySummaryDTO;
+import com.ecommerce.template.dto.ProductDTO;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Caché en memoria del catálogo público (productos filtrados + categorías)
+// Acotado por cantidad de entradas y por TTL; las escrituras del admin invalidan vía CatalogChangedEvent
+@Component
+public class CatalogCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogCache.class);
+
+    private static final String ALL_CATEGORIES = "all";
+    private static final String CATEGORY_SUMMARIES = "summaries";
+
+    // Cuántas invalidaciones de productos se recuerdan para revisar las entradas cargadas antes
+    private static final int INVALIDATION_LOG_SIZE = 64;
+
+    private final Cache<CatalogQueryKey, Stamped<List<ProductDTO>>> products;
+    // Guarda tanto el árbol completo como el resumen con conteos (ver getters tipados)
+    private final Cache<String, Stamped<List<?>>> categories;
+
+    // Generaciones: suben con cada invalidación. removeIf/invalidateAll no cancelan una carga en vuelo,
+    // así que cada entrada guarda la generación en la que empezó a cargarse y al leerla se descarta
+    // si una invalidación que la afecta llegó después (en vez de servir lo viejo hasta que venza el TTL).
+    // Se escriben solo dentro de onCatalogChanged (synchronized)
+    private volatile long productGeneration;
+    private volatile long categoryGeneration;
+    private final Deque<Invalidation> productInvalidations = new ArrayDeque<>();
+
+    public CatalogCache(
+            @Value("${catalog.cache.max-entries:500}") long maxEntries,
+            @Value("${catalog.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.categories = Caffeine.newBuilder()
+                .maximumSize(16)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    // Una entrada vieja se descarta y se recarga una sola vez; si otra invalidación pisa esa carga, la ve el próximo
+    List<ProductDTO> getProducts(CatalogQueryKey key, Supplier<List<ProductDTO>> loader) {
+        Stamped<List<ProductDTO>> entry = loadProducts(key, loader);
+        if (entry.generation < productGeneration && !stillValid(key, entry)) {
+            products.asMap().remove(key, entry);
+            entry = loadProducts(key, loader);
+        }
+        return entry.value;
+    }
+
+    private Stamped<List<ProductDTO>> loadProducts(CatalogQueryKey key, Supplier<List<ProductDTO>> loader) {
+        long loadGeneration = productGeneration;
+        return products.get(key, k -> new Stamped<>(loadGeneration, List.copyOf(loader.get())));
+    }
+
+    @SuppressWarnings("unchecked")
+    List<CategoryDTO> getCategories(Supplier<List<CategoryDTO>> loader) {
+        return (List<CategoryDTO>) getCategoryList(ALL_CATEGORIES, loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    List<CategorySummaryDTO> getCategorySummaries(Supplier<List<CategorySummaryDTO>> loader) {
+        return (List<CategorySummaryDTO>) getCategoryList(CATEGORY_SUMMARIES, loader);
+    }
+
+    // Toda invalidación borra las categorías: cualquier entrada de una generación anterior quedó de una carga en vuelo
+    private List<?> getCategoryList(String key, Supplier<? extends List<?>> loader) {
+        Stamped<List<?>> entry = loadCategories(key, loader);
+        if (entry.generation < categoryGeneration) {
+            categories.asMap().remove(key, entry);
+            entry = loadCategories(key, loader);
+        }
+        return entry.value;
+    }
+
+    private Stamped<List<?>> loadCategories(String key, Supplier<? extends List<?>> loader) {
+        long loadGeneration = categoryGeneration;
+        return categories.get(key, k -> new Stamped<>(loadGeneration, List.copyOf(loader.get())));
+    }
+
+    // Revisa las invalidaciones posteriores a la entrada; si ninguna la afecta, la marca vigente hasta la actual.
+    // Si es más vieja que lo que se recuerda, no hay forma de saberlo y se vuelve a cargar
+    private synchronized boolean stillValid(CatalogQueryKey key, Stamped<?> entry) {
+        Invalidation oldest = productInvalidations.peekFirst();
+        if (oldest == null || oldest.generation() > entry.generation + 1) return false;
+        for (Invalidation invalidation : productInvalidations) {
+            if (invalidation.generation() > entry.generation && key.isAffectedBy(invalidation.event())) return false;
+        }
+        entry.generation = productGeneration;
+        return true;
+    }
+
+    // Se ejecuta DESPUÉS del commit (o enseguida si no hay transacción), así nadie vuelve
+    // a cachear el estado viejo entre la invalidación y el commit. Corre antes que CatalogVersion
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        long before = products.estimatedSize();
+        if (event.productsChanged()) {
+            productInvalidations.addLast(new Invalidation(++productGeneration, event));
+            if (productInvalidations.size() > INVALIDATION_LOG_SIZE) productInvalidations.removeFirst();
+        }
+        products.asMap().keySet().removeIf(key -> key.isAffectedBy(event));
+        // Las categorías listan sus productos, así que cualquier cambio las invalida
+        categoryGeneration++;
+        categories.invalidateAll();
+        logger.info("♻️ [CACHE] Catálogo invalidado: {} búsquedas descartadas (categorías afectadas: {})",
+                before - products.estimatedSize(), event.allProducts() ? "todas" : event.categoryIds());
+    }
+
+    // Aciertos/fallos en Prometheus: cache.gets{cache="catalog.products", result="hit"|"miss"}
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, products, "catalog.products");
+        CaffeineCacheMetrics.monitor(registry, categories, "catalog.categories");
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("products", describe(products.stats(), products.estimatedSize()));
+        stats.put("categories", describe(categories.stats(), categories.estimatedSize()));
+        return stats;
+    }
+
+    // Valor cacheado + generación hasta la que se sabe vigente (arranca en la del inicio de la carga)
+    private static final class Stamped<T> {
+        private final T value;
+        private volatile long generation;
+
+        private Stamped(long generation, T value) {
+            this.generation = generation;
+            this.value = value;
+        }
+    }
+
+    private record Invalidation(long generation, CatalogChangedEvent event) {}
+
+    private Map<String, Object> describe(CacheStats stats, long size) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("size", size);
+        data.put("hits", stats.hitCount());
+        data.put("misses", stats.missCount());
+        data.put("hitRate", stats.hitRate());
+        data.put("evictions", stats.evictionCount());
+        return data;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.model.Product;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+// Evento que publican los servicios cuando cambia algo visible en el catálogo
+// categoryIds / productNames describen QUÉ productos cambiaron (antes y después de la edición),
+// para que los listeners invaliden solo lo afectado. allProducts: cambio masivo, se invalida todo el listado
+public record CatalogChangedEvent(Set<Long> categoryIds, Set<String> productNames, boolean productsChanged,
+                                  boolean allProducts) {
+
+    // Cambios de productos (alta, edición, baja, stock)
+    public static CatalogChangedEvent forProducts(Collection<Product> products) {
+        Set<Long> categoryIds = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (Product product : products) {
+            if (product.getCategory() != null) categoryIds.add(product.getCategory().getId());
+            if (product.getName() != null) names.add(product.getName().toLowerCase());
+        }
+        return new CatalogChangedEvent(categoryIds, names, true, false);
+    }
+
+    // Edición de un producto: hay que invalidar tanto lo que matcheaba antes como lo que matchea ahora
+    public static CatalogChangedEvent forProductUpdate(Long oldCategoryId, String oldName, Product updated) {
+        CatalogChangedEvent event = forProducts(Set.of(updated));
+        if (oldCategoryId != null) event.categoryIds().add(oldCategoryId);
+        if (oldName != null) event.productNames().add(oldName.toLowerCase());
+        return event;
+    }
+
+    // Importaciones y actualizaciones masivas: un solo evento al final en vez de uno por producto
+    public static CatalogChangedEvent forAllProducts() {
+        return new CatalogChangedEvent(Set.of(), Set.of(), true, true);
+    }
+
+    // Alta/baja de categorías: no cambia ningún listado de productos
+    public static CatalogChangedEvent forCategories() {
+        return new CatalogChangedEvent(Set.of(), Set.of(), false, false);
+    }
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.model.ProductSortOrder;
+
+// Clave normalizada de una búsqueda del catálogo
+// "Mouse", " mouse " y "MOUSE" comparten entrada; inStock=false equivale a no filtrar
+record CatalogQueryKey(String name, Long categoryId, boolean inStock, Boolean active, ProductSortOrder sortOrder) {
+
+    static CatalogQueryKey of(String name, Long categoryId, Boolean inStock, Boolean active, String sortOrder) {
+        String normalizedName = (name != null && !name.isBlank()) ? name.trim().toLowerCase() : null;
+        return new CatalogQueryKey(
+                normalizedName,
+                categoryId,
+                inStock != null && inStock,
+                active,
+                ProductSortOrder.fromParam(sortOrder));
+    }
+
+    // ¿Este listado puede contener alguno de los productos que cambiaron?
+    boolean isAffectedBy(CatalogChangedEvent event) {
+        if (!event.productsChanged()) return false;
+        if (event.allProducts()) return true;
+        if (categoryId != null && !event.categoryIds().contains(categoryId)) return false;
+        if (name == null) return true;
+        return event.productNames().stream().anyMatch(productName -> productName.contains(name));
+    }
+}
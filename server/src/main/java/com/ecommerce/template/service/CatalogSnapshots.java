@@ -0,0 +1,154 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.ProductDTO;
+import com.ecommerce.template.model.ProductSortOrder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+// Vitrina pre-armada: las vistas por defecto del catálogo (productos activos, sin búsqueda, por categoría
+// y por cada sortOrder) son iguales para todos los visitantes, así que se serializan y comprimen una sola vez.
+// Cada cambio del catálogo dispara una reconstrucción en segundo plano; la vista nueva reemplaza a la
+// anterior de una sola vez (AtomicReference), así nunca se sirve un snapshot a medio armar.
+// Si el snapshot quedó atrás de CatalogVersion se ignora y el pedido sigue el camino normal
+@Service
+public class CatalogSnapshots {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshots.class);
+
+    // Una vista lista para escribir en la respuesta tal cual
+    public record View(long version, byte[] json, byte[] gzip) {}
+
+    private record Snapshot(long version, Map<CatalogQueryKey, View> views) {}
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("catalogExecutor")
+    private ThreadPoolTaskExecutor catalogExecutor;
+
+    @Value("${catalog.snapshot.enabled:true}")
+    private boolean enabled;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Vista pre-armada para estos filtros, o null si no es una vista por defecto o si está desactualizada
+    public View find(String name, Long categoryId, Boolean inStock, Boolean active, String sortOrder) {
+        CatalogQueryKey key = CatalogQueryKey.of(name, categoryId, inStock, active, sortOrder);
+        if (!enabled || key.name() != null || key.inStock() || !Boolean.TRUE.equals(key.active())) return null;
+
+        Snapshot snapshot = current.get();
+        if (snapshot == null || snapshot.version() != catalogVersion.current()) return null;
+        return snapshot.views().get(key);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        requestRebuild();
+    }
+
+    // Después de que CatalogVersion subió la versión (ver @Order en CatalogVersion)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        requestRebuild();
+    }
+
+    // Una ráfaga de cambios (ej: una compra con muchos productos) termina en una sola reconstrucción extra
+    void requestRebuild() {
+        if (!enabled) return;
+        pending.set(true);
+        if (running.compareAndSet(false, true)) {
+            catalogExecutor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (pending.getAndSet(false)) {
+                rebuildNow();
+            }
+        } finally {
+            running.set(false);
+            // Un pedido que llegó justo entre el último chequeo y el set(false)
+            if (pending.get() && running.compareAndSet(false, true)) {
+                catalogExecutor.execute(this::drain);
+            }
+        }
+    }
+
+    void rebuildNow() {
+        // La versión se toma ANTES de leer: el snapshot es al menos tan nuevo como la versión que declara
+        long version = catalogVersion.current();
+        long start = System.currentTimeMillis();
+        try {
+            Map<CatalogQueryKey, View> views = new HashMap<>();
+            long bytes = 0;
+            // Una consulta por orden; las vistas por categoría se arman filtrando la lista (se conserva el orden)
+            for (ProductSortOrder order : ProductSortOrder.values()) {
+                List<ProductDTO> all = productService.getAllProducts(null, null, null, true, order.getParam());
+
+                Map<Long, List<ProductDTO>> byCategory = new LinkedHashMap<>();
+                for (ProductDTO product : all) {
+                    byCategory.computeIfAbsent(product.getCategoryId(), id -> new ArrayList<>()).add(product);
+                }
+
+                views.put(CatalogQueryKey.of(null, null, null, true, order.getParam()), render(version, all));
+                for (Map.Entry<Long, List<ProductDTO>> entry : byCategory.entrySet()) {
+                    if (entry.getKey() == null) continue;
+                    views.put(CatalogQueryKey.of(null, entry.getKey(), null, true, order.getParam()),
+                            render(version, entry.getValue()));
+                }
+            }
+            for (View view : views.values()) bytes += view.json().length + view.gzip().length;
+
+            current.set(new Snapshot(version, Map.copyOf(views)));
+            logger.info("📸 [CATALOGO] Snapshot v{} listo: {} vistas, {} KB en memoria ({} ms)",
+                    version, views.size(), bytes / 1024, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // Se conserva el anterior: al quedar desactualizado deja de servirse y se usa el camino normal
+            logger.error("❌ [CATALOGO] No se pudo armar el snapshot v{}: {}", version, e.getMessage());
+        }
+    }
+
+    private View render(long version, List<ProductDTO> products) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(products);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        }
+        return new View(version, json, compressed.toByteArray());
+    }
+}
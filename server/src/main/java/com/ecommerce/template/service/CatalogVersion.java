@@ -0,0 +1,42 @@
+package com.ecommerce.template.service;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Versión del catálogo público: sube con cada CatalogChangedEvent (altas/bajas/ediciones y cambios de stock).
+// Es la base de los ETag de /api/products y /api/categories: si no cambió, el cliente ya tiene la última respuesta
+@Component
+public class CatalogVersion {
+
+    // Arranca en la hora de inicio: después de un reinicio nunca se repite un ETag de un catálogo distinto
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public long current() {
+        return version.get();
+    }
+
+    public String etag() {
+        return etagOf(version.get());
+    }
+
+    public static String etagOf(long version) {
+        return "\"catalog-" + version + "\"";
+    }
+
+    // Misma versión en otra codificación (ej: el snapshot gzip): es otra representación, otro ETag
+    public static String etagOf(long version, String contentCoding) {
+        return "\"catalog-" + version + "-" + contentCoding + "\"";
+    }
+
+    // Después del commit y DESPUÉS de que CatalogCache descarte lo viejo: quien lea la versión nueva
+    // nunca recibe datos cacheados de la anterior. CatalogSnapshots reconstruye después, ya con la versión nueva
+    @Order(Ordered.LOWEST_PRECEDENCE - 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        version.incrementAndGet();
+    }
+}
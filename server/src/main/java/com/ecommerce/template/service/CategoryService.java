@@ -1,18 +1,22 @@
 package com.ecommerce.template.service;
 
 import com.ecommerce.template.dto.CategoryDTO;
+import com.ecommerce.template.dto.CategorySummaryDTO;
 import com.ecommerce.template.dto.ProductDTO;
 import com.ecommerce.template.model.Category;
-import com.ecommerce.template.model.Product;
 import com.ecommerce.template.repository.CategoryRepository;
+import com.ecommerce.template.repository.ProductRepository;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,15 +27,37 @@ public class CategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public List<CategoryDTO> getAllCategories() {
+        return catalogCache.getCategories(this::findAllCategories);
+    }
+
+    // Categorías SIN productos, solo con la cantidad (1 consulta, no hidrata filas de productos)
+    public List<CategorySummaryDTO> getCategorySummaries() {
+        return catalogCache.getCategorySummaries(categoryRepository::findAllWithProductCount);
+    }
+
+    // Siempre 2 consultas, sin importar cuántas categorías o productos haya:
+    // 1) categorías, 2) todos los productos ya proyectados a DTO, que agrupamos en memoria
+    private List<CategoryDTO> findAllCategories() {
         logger.info("📂 [CATEGORIAS] Obteniendo todas las categorías");
-        return categoryRepository.findAll().stream()
+        List<Category> categories = categoryRepository.findAll(Sort.by("id"));
+        Map<Long, List<ProductDTO>> productsByCategory = productRepository.findAllAsDTO().stream()
+                .collect(Collectors.groupingBy(ProductDTO::getCategoryId));
+
+        return categories.stream()
                 .map(category -> new CategoryDTO(
                         category.getId(),
                         category.getName(),
-                        category.getProducts().stream()
-                                .map(this::convertToDTO)
-                                .collect(Collectors.toList())
+                        productsByCategory.getOrDefault(category.getId(), new ArrayList<>())
                 ))
                 .collect(Collectors.toList());
     }
@@ -43,6 +69,7 @@ public class CategoryService {
             category = categoryRepository.save(category);
 
             logger.info("✨ [CATEGORIAS] Categoría {} creada con ID: {}", categoryDTO.getName(), category.getId());
+            eventPublisher.publishEvent(CatalogChangedEvent.forCategories());
             return new CategoryDTO(category.getId(), category.getName(), new ArrayList<>());
         } catch (Exception e) {
             logger.error("❌ [CATEGORIAS] Error al crear categoría: {}", e.getMessage());
@@ -55,28 +82,17 @@ public class CategoryService {
             logger.info("🗑️ [CATEGORIAS] Intentando borrar ID: {}", id);
             Category category = categoryRepository.findById(id)
                     .orElseThrow(() -> new IllegalArgumentException("Categoría con id:" + id + " no encontrada" ));
-            if (!category.getProducts().isEmpty()) {
+            // EXISTS en vez de cargar toda la colección de productos
+            if (productRepository.existsByCategoryId(id)) {
                 logger.warn("⚠️ [CATEGORIAS] No se puede borrar: tiene productos asociados.");
                 throw new IllegalArgumentException("No se puede eliminar una categoría que tiene productos asociados");
             }
             categoryRepository.delete(category);
             logger.info("🗑️ [CATEGORIAS] Categoría {} eliminada con ID: {}", category.getName(), id);
+            eventPublisher.publishEvent(CatalogChangedEvent.forCategories());
         } catch (RuntimeException e) {
             logger.error("❌ [CATEGORIAS] Error al eliminar categoría: {}", e.getMessage());
             throw new RuntimeException("Error al eliminar categoría: " + e.getMessage());
         }
     }
-
-    private ProductDTO convertToDTO(Product product) {
-        return new ProductDTO(
-                        product.getId(),
-                        product.getName(),
-                        product.getPrice(),
-                        product.getStock(),
-                        product.getCategory() != null ? product.getCategory().getName() : "Sin categoría",
-                        product.getCategory() != null ? product.getCategory().getId() : null,
-                        product.getImageUrl(),
-                        product.getDescription(),
-                        product.getActive());
-    }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.ecommerce.template.service;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import com.ecommerce.template.service.UpstreamLimiter.Upstream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+// Sube el original a Cloudinary. Los tamaños no se generan acá: ImageSrcset arma URLs con la
+// transformación (c_limit,w_N,f_auto,q_auto) y Cloudinary los genera en el primer pedido y los cachea en su CDN
+@Service
+@ConditionalOnProperty(name = "images.storage", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryImageStorage implements ImageStorage {
+
+    @Autowired
+    private Cloudinary cloudinary;
+
+    @Autowired
+    private UpstreamLimiter upstreamLimiter;
+
+    @Value("${images.cloudinary.folder:gamerstore}")
+    private String folder;
+
+    @Override
+    public StoredImage store(String hash, Path staged, String extension) throws Exception {
+        // public_id = hash y overwrite=false: la misma imagen subida dos veces queda como un solo recurso.
+        // Se sube desde el archivo en disco (en streaming), no desde un byte[] con todo el upload
+        Map uploadResult = upstreamLimiter.call(Upstream.CLOUDINARY, () -> cloudinary.uploader().upload(staged.toFile(), ObjectUtils.asMap(
+                "folder", folder,
+                "public_id", hash,
+                "overwrite", false,
+                "unique_filename", false
+        )));
+        return new StoredImage(uploadResult.get("secure_url").toString(), false);
+    }
+}
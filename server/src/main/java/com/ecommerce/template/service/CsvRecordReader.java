@@ -0,0 +1,68 @@
+package com.ecommerce.template.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lector CSV mínimo (RFC 4180): separador coma, campos entre comillas dobles con "" como comilla escapada
+// y saltos de línea dentro de comillas. Devuelve un registro por vez: el archivo nunca está entero en memoria
+final class CsvRecordReader {
+
+    private final BufferedReader reader;
+    private int line;
+    private int recordLine;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader, 64 * 1024);
+    }
+
+    // Línea del archivo donde empezó el último registro leído (para el reporte de errores)
+    int recordLine() {
+        return recordLine;
+    }
+
+    // Campos del próximo registro, o null al final del archivo
+    List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        recordLine = line + 1;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) reader.reset();
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!read) return null;
+        fields.add(field.toString());
+        return fields;
+    }
+}
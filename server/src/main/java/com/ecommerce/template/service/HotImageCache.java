@@ -0,0 +1,69 @@
+package com.ecommerce.template.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Archivos chicos del almacenamiento local (miniaturas) en memoria, por "hash/variante".
+// La admisión de Caffeine (TinyLFU) solo deja entrar lo que se pide más seguido que lo que desalojaría,
+// así que queda el conjunto caliente de verdad. Un archivo con hash nunca cambia: no hace falta invalidar
+@Component
+@ConditionalOnProperty(name = "images.storage", havingValue = "local")
+public class HotImageCache implements MeterBinder {
+
+    public record HotImage(byte[] bytes, String etag, MediaType type) {}
+
+    private final Cache<String, HotImage> images;
+    private final long maxFileBytes;
+
+    public HotImageCache(
+            @Value("${images.serve.hot.max-bytes:33554432}") long maxBytes,
+            @Value("${images.serve.hot.max-file-bytes:65536}") long maxFileBytes) {
+        this.images = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, HotImage image) -> image.bytes().length)
+                .recordStats()
+                .build();
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    public HotImage get(String key) {
+        return images.getIfPresent(key);
+    }
+
+    // Solo archivos hasta images.serve.hot.max-file-bytes; los grandes van por sendfile
+    public boolean admits(long size) {
+        return size <= maxFileBytes;
+    }
+
+    public void put(String key, HotImage image) {
+        images.put(key, image);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, images, "images.hot");
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = images.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", images.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+}
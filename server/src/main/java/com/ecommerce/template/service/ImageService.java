@@ -1,30 +1,120 @@
 package com.ecommerce.template.service;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
+import com.ecommerce.template.dto.ImageSrcset;
+import com.ecommerce.template.model.ImageVariant;
+
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.Map;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
 
+// Pipeline de imágenes: el upload se vuelca a disco calculando su SHA-256 en el camino (nunca entra
+// entero al heap), se guarda bajo ese hash en el ImageStorage activo (misma imagen = mismo archivo)
+// y los tamaños chicos se generan en segundo plano. El request responde apenas el original quedó guardado
 @Service
 public class ImageService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ImageService.class);
+
+    @Autowired
+    private ImageStorage imageStorage;
+
     @Autowired
-    private Cloudinary cloudinary;
+    @Qualifier("imageExecutor")
+    private ThreadPoolTaskExecutor imageExecutor;
 
+    // Devuelve la URL a guardar en la entidad (la variante "detail"; el resto sale de ImageSrcset)
+    @Timed(value = "images.upload", histogram = true)
     public String uploadImage(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("No se recibió ninguna imagen");
+        }
+
+        Path staged = null;
+        try {
+            staged = imageStorage.createStagingFile();
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, staged, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String extension = detectFormat(staged);
+
+            ImageStorage.StoredImage stored = imageStorage.store(hash, staged, extension);
+            if (stored.derivativesPending()) {
+                scheduleDerivatives(hash);
+            }
+
+            String detail = ImageSrcset.url(stored.url(), ImageVariant.DETAIL);
+            return detail != null ? detail : stored.url();
+        } catch (UpstreamBusyException | IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error al subir la imagen", e);
+        } finally {
+            deleteQuietly(staged);
+        }
+    }
+
+    private void scheduleDerivatives(String hash) {
+        try {
+            imageExecutor.execute(() -> {
+                try {
+                    imageStorage.generateDerivatives(hash);
+                } catch (Exception e) {
+                    logger.error("❌ [IMAGENES] Falló la generación de derivados de {}: {}", hash, e.getMessage());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // Cola llena: mientras tanto se sirve el original; se reintenta si la imagen se vuelve a subir
+            logger.warn("⚠️ [IMAGENES] Cola de derivados llena, {} queda pendiente", hash);
+        }
+    }
+
+    // El formato se toma de los primeros bytes del archivo, no del Content-Type que manda el cliente
+    static String detectFormat(Path file) throws IOException {
+        byte[] header = new byte[12];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(header, 0, header.length);
+        }
+
+        if (read >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (read >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+            return "png";
+        }
+        if (read >= 6 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+            return "gif";
+        }
+        if (read >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "webp";
+        }
+        throw new IllegalArgumentException("El archivo no es una imagen soportada (JPG, PNG, GIF o WebP)");
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) return;
         try {
-            // Subir a Cloudinary
-            Map uploadResult = cloudinary.uploader().upload(file.getBytes(), ObjectUtils.asMap(
-                "folder", "gamerstore" // Opcional: carpeta en cloudinary
-            ));
-            // Retornar la URL segura (https)
-            return uploadResult.get("secure_url").toString();
+            Files.deleteIfExists(file);
         } catch (IOException e) {
-            throw new RuntimeException("Error al subir imagen a Cloudinary", e);
+            logger.warn("⚠️ [IMAGENES] No se pudo borrar el temporal {}", file);
         }
     }
-}
\ No newline at end of file
+}
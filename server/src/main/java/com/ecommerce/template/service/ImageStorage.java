@@ -0,0 +1,25 @@
+package com.ecommerce.template.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Dónde terminan las imágenes subidas. Se elige con images.storage:
+// cloudinary (por defecto) o local (disco, sirve para desarrollar y testear sin red)
+public interface ImageStorage {
+
+    // url: la de la imagen original; derivativesPending: hay que llamar a generateDerivatives(hash)
+    record StoredImage(String url, boolean derivativesPending) {}
+
+    // Archivo temporal donde ImageService vuelca el upload mientras calcula el hash
+    default Path createStagingFile() throws IOException {
+        return Files.createTempFile("upload-", ".part");
+    }
+
+    // Guarda la imagen bajo su hash de contenido. Si ya existe no se duplica.
+    // extension: formato real detectado por ImageService (jpg, png, gif, webp)
+    StoredImage store(String hash, Path staged, String extension) throws Exception;
+
+    // Genera los tamaños de ImageVariant. Corre en imageExecutor, fuera del request
+    default void generateDerivatives(String hash) throws IOException {}
+}
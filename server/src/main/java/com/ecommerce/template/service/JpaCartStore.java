@@ -0,0 +1,236 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.CartDTO;
+import com.ecommerce.template.dto.CartItemDTO;
+import com.ecommerce.template.dto.CartOperationDTO;
+import com.ecommerce.template.model.Cart;
+import com.ecommerce.template.model.CartItem;
+import com.ecommerce.template.model.Product;
+import com.ecommerce.template.model.User;
+import com.ecommerce.template.repository.CartRepository;
+import com.ecommerce.template.repository.ProductRepository;
+import com.ecommerce.template.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Store por defecto (cart.store=jpa): cada operación se escribe en Postgres dentro de su propia transacción
+@Service
+@ConditionalOnProperty(name = "cart.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaCartStore implements CartStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JpaCartStore.class);
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cart createCart(User user) {
+        // getReferenceById no consulta la base, solo necesitamos la FK
+        return cartRepository.save(new Cart(userRepository.getReferenceById(user.getId())));
+    }
+
+    // Carrito con items y productos en una consulta; si no existe, se crea vacío
+    private Cart loadCart(User user) {
+        return cartRepository.findWithItemsByUserId(user.getId())
+                .orElseGet(() -> {
+                    logger.info("🛒 [CARRITO] Primer acceso. Creando carrito nuevo para usuario: '{}'",
+                            user.getUsername());
+                    return createCart(user);
+                });
+    }
+
+    // OBTENER CARRITO
+    @Override
+    @Transactional
+    public CartDTO getCart(User user) {
+        return convertToDTO(loadCart(user));
+    }
+
+    // Las mutaciones corren en una transacción: el carrito queda gestionado y los cambios se escriben
+    // solos al hacer commit (dirty checking + cascade/orphanRemoval), sin save() explícitos
+
+    // AGREGAR ITEM
+    @Override
+    @Transactional
+    public CartDTO addItem(User user, Long productId, Integer quantity) {
+        Cart cart = loadCart(user);
+        CartItem existingItem = cart.findItem(productId);
+
+        // Si ya está en el carrito, el producto vino en el fetch join (no hay consulta extra)
+        Product product = existingItem != null
+                ? existingItem.getProduct()
+                : productRepository.findById(productId).orElseThrow();
+
+        logger.info("🛒 [CARRITO] Usuario '{}' quiere agregar '{}' (x{})", user.getUsername(), product.getName(),
+                quantity);
+
+        int currentQuantityInCart = (existingItem != null) ? existingItem.getQuantity() : 0;
+
+        // VALIDACIÓN STOCK
+        if (currentQuantityInCart + quantity > product.getStock()) {
+            logger.warn("🚫 [STOCK] Intento fallido. Usuario pidió {} (tiene {}), Stock real: {}",
+                    quantity, currentQuantityInCart, product.getStock());
+            meterRegistry.counter("stock.rejections", "stage", "cart").increment();
+            throw new RuntimeException("Stock insuficiente. Disponibles: " + product.getStock());
+        }
+
+        if (existingItem != null) {
+            existingItem.setQuantity(existingItem.getQuantity() + quantity);
+            logger.info("🔄 [CARRITO] Cantidad actualizada. Ahora tiene {} unidades.", existingItem.getQuantity());
+        } else {
+            cart.addItem(new CartItem(product, quantity, cart));
+            logger.info("➕ [CARRITO] Producto nuevo añadido exitosamente.");
+        }
+
+        return convertToDTO(cart);
+    }
+
+    // REMOVER UNA UNIDAD
+    @Override
+    @Transactional
+    public CartDTO removeOne(User user, Long productId) {
+        Cart cart = loadCart(user);
+
+        CartItem item = cart.findItem(productId);
+        if (item == null) {
+            throw new RuntimeException("El producto no está en el carrito");
+        }
+
+        if (item.getQuantity() > 1) {
+            item.setQuantity(item.getQuantity() - 1);
+            logger.info("➖ [CARRITO] Restada 1 unidad de '{}'. Quedan: {}", item.getProduct().getName(), item.getQuantity());
+        } else {
+            cart.removeItem(item); // orphanRemoval lo borra
+            logger.info("🗑️ [CARRITO] Última unidad removida. Producto '{}' eliminado del carro.", item.getProduct().getName());
+        }
+
+        return convertToDTO(cart);
+    }
+
+    // REMOVER ITEM COMPLETO
+    @Override
+    @Transactional
+    public CartDTO removeItem(User user, Long productId) {
+        Cart cart = loadCart(user);
+
+        CartItem item = cart.findItem(productId);
+        if (item != null) {
+            logger.info("🗑️ [CARRITO] Eliminando TODAS las unidades de '{}'", item.getProduct().getName());
+            cart.removeItem(item); // Borrado físico (orphanRemoval)
+        }
+
+        return convertToDTO(cart);
+    }
+
+    // LIMPIAR CARRITO
+    @Override
+    @Transactional
+    public CartDTO clearCart(User user) {
+        logger.info("🧹 [CARRITO] Solicitud de vaciado completo por usuario: '{}'", user.getUsername());
+
+        Cart cart = loadCart(user);
+
+        // Borra todos los items (gracias a orphanRemoval = true)
+        cart.clearItems();
+
+        return convertToDTO(cart);
+
+    }
+
+    // OPERACIONES EN LOTE (PATCH /api/cart)
+    // Una sola transacción: se aplican todas en orden y el stock se valida sobre las cantidades finales.
+    // Si alguna falla, no se aplica ninguna
+    @Override
+    @Transactional
+    public CartDTO applyOperations(User user, List<CartOperationDTO> operations) {
+        CartOperations.validate(operations);
+
+        Cart cart = loadCart(user);
+
+        // Productos que no están en el carrito: todos juntos con un findAllById
+        Set<Long> missingIds = new LinkedHashSet<>();
+        for (CartOperationDTO operation : operations) {
+            if (cart.findItem(operation.getProductId()) == null) {
+                missingIds.add(operation.getProductId());
+            }
+        }
+        Map<Long, Product> products = new HashMap<>(productRepository.loadAllById(missingIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity())));
+        cart.getItems().forEach(item -> products.put(item.getProduct().getId(), item.getProduct()));
+
+        Set<Long> touched = new LinkedHashSet<>();
+        for (CartOperationDTO operation : operations) {
+            Product product = products.get(operation.getProductId());
+            if (product == null) {
+                throw new RuntimeException("Producto no encontrado: " + operation.getProductId());
+            }
+            CartItem item = cart.findItem(product.getId());
+            int current = item != null ? item.getQuantity() : 0;
+
+            int target = CartOperations.targetQuantity(operation, current);
+
+            if (target <= 0) {
+                if (item != null) cart.removeItem(item);
+            } else if (item != null) {
+                item.setQuantity(target);
+            } else {
+                cart.addItem(new CartItem(product, target, cart));
+            }
+            touched.add(product.getId());
+        }
+
+        // VALIDACIÓN STOCK (sobre el resultado final de cada producto tocado)
+        for (Long productId : touched) {
+            CartItem item = cart.findItem(productId);
+            if (item != null && item.getQuantity() > item.getProduct().getStock()) {
+                logger.warn("🚫 [STOCK] Lote rechazado. '{}' pedido x{}, Stock real: {}",
+                        item.getProduct().getName(), item.getQuantity(), item.getProduct().getStock());
+                meterRegistry.counter("stock.rejections", "stage", "cart").increment();
+                throw new RuntimeException("Stock insuficiente para '" + item.getProduct().getName()
+                        + "'. Disponibles: " + item.getProduct().getStock());
+            }
+        }
+
+        logger.info("🛒 [CARRITO] Usuario '{}' aplicó {} operaciones ({} productos)",
+                user.getUsername(), operations.size(), touched.size());
+        return convertToDTO(cart);
+    }
+
+    // Helper para no repetir código de conversión
+    private CartDTO convertToDTO(Cart cart) {
+        return new CartDTO(
+                cart.getId(),
+                cart.getUser().getId(),
+                cart.getItems().stream().map(i -> new CartItemDTO(
+                        i.getId(),
+                        i.getProduct().getId(),
+                        i.getProduct().getName(),
+                        i.getProduct().getPrice().doubleValue(),
+                        i.getProduct().getStock(),
+                        i.getQuantity(),
+                        i.getProduct().getImageUrl())).collect(Collectors.toList()));
+    }
+
+}
\ No newline at end of file
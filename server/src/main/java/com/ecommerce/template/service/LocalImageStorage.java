@@ -0,0 +1,216 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.model.ImageVariant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Almacenamiento en disco direccionado por contenido:
+//   {root}/{ab}/{sha256}/original.{ext}   el archivo tal cual se subió
+//   {root}/{ab}/{sha256}/{variante}.jpg   los tamaños de ImageVariant (se generan después)
+// Todo se escribe en un temporal y se publica con un move atómico: nunca se lee un archivo a medio escribir
+@Service
+@ConditionalOnProperty(name = "images.storage", havingValue = "local")
+public class LocalImageStorage implements ImageStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalImageStorage.class);
+
+    public record ImageFile(Path path, String extension, boolean exact) {}
+
+    static final List<String> EXTENSIONS = List.of("jpg", "png", "gif", "webp");
+    static final String ORIGINAL = "original";
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private final Path root;
+    private final Path staging;
+    private final String baseUrl;
+
+    public LocalImageStorage(
+            @Value("${images.local.root:uploads/images}") String root,
+            @Value("${images.local.base-url:/api/images/files}") String baseUrl) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        // Mismo disco que el destino, así el move final es un rename y no una copia
+        this.staging = Files.createDirectories(this.root.resolve("tmp"));
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    @Override
+    public Path createStagingFile() throws IOException {
+        return Files.createTempFile(staging, "upload-", ".part");
+    }
+
+    @Override
+    public StoredImage store(String hash, Path staged, String extension) throws IOException {
+        Path dir = directory(hash);
+        if (findOriginal(hash) != null) {
+            logger.info("♻️ [IMAGENES] {} ya existía, no se vuelve a guardar", hash);
+        } else {
+            Files.createDirectories(dir);
+            try {
+                Files.move(staged, dir.resolve(ORIGINAL + "." + extension), StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Otra subida de la misma imagen llegó primero: el contenido es idéntico
+            }
+        }
+        // Si una generación anterior se perdió (cola llena, reinicio) se vuelve a pedir
+        return new StoredImage(baseUrl + "/" + hash + "/" + ORIGINAL, !derivativesComplete(hash));
+    }
+
+    @Override
+    public void generateDerivatives(String hash) throws IOException {
+        Path original = findOriginal(hash);
+        if (original == null || derivativesComplete(hash)) return;
+
+        long start = System.currentTimeMillis();
+        BufferedImage source = read(original, ImageVariant.DETAIL.getWidth());
+        if (source == null) {
+            // ImageIO no decodifica WebP: se sirve el original en todos los tamaños
+            logger.warn("⚠️ [IMAGENES] No se pudo decodificar {}, se queda sin derivados", original.getFileName());
+            return;
+        }
+
+        // Del más grande al más chico: cada tamaño parte del anterior (menos trabajo y mejor calidad)
+        Path dir = directory(hash);
+        List<ImageVariant> variants = List.of(ImageVariant.values()).reversed();
+        for (ImageVariant variant : variants) {
+            source = resize(source, variant.getWidth());
+            Path target = dir.resolve(variant.getName() + ".jpg");
+            Path temp = Files.createTempFile(staging, variant.getName() + "-", ".part");
+            try {
+                writeJpeg(source, temp);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        logger.info("🖼️ [IMAGENES] Derivados de {} listos ({} ms)", hash, System.currentTimeMillis() - start);
+    }
+
+    // Archivo que corresponde a /files/{hash}/{name}: la variante pedida o, si todavía no se generó, el original
+    // (exact = false: no se puede cachear como definitivo). null si no existe o el pedido no es válido
+    public ImageFile locate(String hash, String name) {
+        if (hash == null || !HASH.matcher(hash).matches()) return null;
+
+        ImageVariant variant = ImageVariant.fromName(name);
+        if (variant == null && !ORIGINAL.equals(name)) return null;
+
+        if (variant != null) {
+            Path derivative = directory(hash).resolve(variant.getName() + ".jpg");
+            if (Files.exists(derivative)) return new ImageFile(derivative, "jpg", true);
+        }
+        Path original = findOriginal(hash);
+        if (original == null) return null;
+        String fileName = original.getFileName().toString();
+        return new ImageFile(original, fileName.substring(fileName.indexOf('.') + 1), variant == null);
+    }
+
+    // Carpeta de una imagen; valida el hash para que nunca se pueda salir de root
+    Path directory(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Hash de imagen inválido");
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    Path findOriginal(String hash) {
+        Path dir = directory(hash);
+        for (String extension : EXTENSIONS) {
+            Path original = dir.resolve(ORIGINAL + "." + extension);
+            if (Files.exists(original)) return original;
+        }
+        return null;
+    }
+
+    private boolean derivativesComplete(String hash) {
+        Path dir = directory(hash);
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (!Files.exists(dir.resolve(variant.getName() + ".jpg"))) return false;
+        }
+        return true;
+    }
+
+    // Decodifica salteando píxeles si la imagen es mucho más grande que el tamaño máximo:
+    // una foto de 6000 px no ocupa 100 MB de heap para terminar en 1200 px
+    private static BufferedImage read(Path file, int maxWidth) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int step = Math.max(1, reader.getWidth(0) / maxWidth);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Achica a la mitad por pasos hasta llegar al ancho (el bilineal de un solo paso pierde detalle).
+    // Siempre devuelve RGB sobre fondo blanco: JPEG no tiene transparencia
+    private static BufferedImage resize(BufferedImage source, int maxWidth) {
+        int targetWidth = Math.min(maxWidth, source.getWidth());
+        int targetHeight = Math.max(1, Math.round((float) source.getHeight() * targetWidth / source.getWidth()));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(current, 0, 0, width, height, null);
+            graphics.dispose();
+            current = next;
+        } while (width > targetWidth);
+        return current;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.OrderExportRow;
+import com.ecommerce.template.model.OrderStatus;
+import com.ecommerce.template.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Exportación de órdenes para finanzas: se leen las filas con un cursor y se escriben directo
+// a la respuesta, así la memoria no depende del tamaño de la tabla
+@Service
+public class OrderExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExportService.class);
+
+    private static final String CSV_HEADER = "order_id,date,status,total,delivery_method,shipping_address," +
+            "username,email,item_id,product_id,product_name,quantity,price";
+
+    public enum Format {
+        CSV("text/csv; charset=UTF-8", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format fromParam(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) return format;
+            }
+            throw new RuntimeException("Formato de exportación inválido: " + value + " (usar csv o ndjson)");
+        }
+    }
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Transacción de Spring (readOnly): Postgres solo respeta el fetch size del cursor con autocommit apagado
+    @Transactional(readOnly = true)
+    public long export(Format format, OrderStatus status, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+
+        try (Stream<OrderExportRow> rows = orderRepository.streamExportRows(
+                status,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null)) {
+
+            long written = format == Format.CSV ? writeCsv(rows.iterator(), writer) : writeNdjson(rows.iterator(), writer);
+            writer.flush();
+            logger.info("📤 [ORDENES] Exportación {}: {} registros", format, written);
+            return written;
+        }
+    }
+
+    // CSV: una fila por item (las órdenes sin items salen con las columnas del item vacías)
+    private long writeCsv(Iterator<OrderExportRow> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long count = 0;
+        while (rows.hasNext()) {
+            OrderExportRow row = rows.next();
+            writer.write(csvLine(
+                    row.getOrderId(), row.getDate(), row.getStatus(), row.getTotal(), row.getDeliveryMethod(),
+                    row.getShippingAddress(), row.getUsername(), row.getEmail(), row.getItemId(), row.getProductId(),
+                    row.getProductName(), row.getQuantity(), row.getPrice()));
+            count++;
+        }
+        return count;
+    }
+
+    // NDJSON: un objeto por orden con sus items. Las filas llegan ordenadas por orden,
+    // así que solo se acumula la orden actual
+    private long writeNdjson(Iterator<OrderExportRow> rows, Writer writer) throws IOException {
+        long count = 0;
+        Map<String, Object> current = null;
+        List<Map<String, Object>> items = null;
+
+        while (rows.hasNext()) {
+            OrderExportRow row = rows.next();
+
+            if (current == null || !current.get("id").equals(row.getOrderId())) {
+                if (current != null) {
+                    writeJsonLine(current, writer);
+                    count++;
+                }
+                items = new ArrayList<>();
+                current = new LinkedHashMap<>();
+                current.put("id", row.getOrderId());
+                current.put("date", row.getDate());
+                current.put("status", row.getStatus());
+                current.put("total", row.getTotal());
+                current.put("deliveryMethod", row.getDeliveryMethod());
+                current.put("shippingAddress", row.getShippingAddress());
+                current.put("username", row.getUsername());
+                current.put("email", row.getEmail());
+                current.put("items", items);
+            }
+
+            if (row.getItemId() != null) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("id", row.getItemId());
+                item.put("productId", row.getProductId());
+                item.put("productName", row.getProductName());
+                item.put("quantity", row.getQuantity());
+                item.put("price", row.getPrice());
+                items.add(item);
+            }
+        }
+
+        if (current != null) {
+            writeJsonLine(current, writer);
+            count++;
+        }
+        return count;
+    }
+
+    // Listados GET /api/orders y /api/orders/my-orders: un array JSON escrito con JsonGenerator a medida que
+    // llegan las filas, sin entidades ni listas intermedias. Conserva la forma que lee el front
+    // (user.username, items[].product.name); los null se omiten igual que en el resto de la API
+    @Transactional(readOnly = true)
+    public long writeOrderList(Long userId, OutputStream out) throws IOException {
+        try (Stream<OrderExportRow> rows = orderRepository.streamListRows(userId);
+             JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET); // el stream de la respuesta lo cierra el contenedor
+
+            long count = 0;
+            Long currentId = null;
+            json.writeStartArray();
+            Iterator<OrderExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                OrderExportRow row = iterator.next();
+
+                if (!row.getOrderId().equals(currentId)) {
+                    if (currentId != null) {
+                        json.writeEndArray();
+                        json.writeEndObject();
+                    }
+                    currentId = row.getOrderId();
+                    count++;
+                    json.writeStartObject();
+                    writeField(json, "id", row.getOrderId());
+                    writeField(json, "date", row.getDate());
+                    writeField(json, "total", row.getTotal());
+                    writeField(json, "status", row.getStatus());
+                    writeField(json, "deliveryMethod", row.getDeliveryMethod());
+                    writeField(json, "shippingAddress", row.getShippingAddress());
+                    json.writeObjectFieldStart("user");
+                    writeField(json, "username", row.getUsername());
+                    writeField(json, "email", row.getEmail());
+                    json.writeEndObject();
+                    json.writeArrayFieldStart("items");
+                }
+
+                if (row.getItemId() != null) {
+                    json.writeStartObject();
+                    writeField(json, "id", row.getItemId());
+                    writeField(json, "quantity", row.getQuantity());
+                    writeField(json, "price", row.getPrice());
+                    json.writeObjectFieldStart("product");
+                    writeField(json, "id", row.getProductId());
+                    writeField(json, "name", row.getProductName());
+                    writeField(json, "imageUrl", row.getProductImageUrl());
+                    json.writeEndObject();
+                    json.writeEndObject();
+                }
+            }
+            if (currentId != null) {
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            return count;
+        }
+    }
+
+    private void writeField(JsonGenerator json, String name, Object value) throws IOException {
+        if (value != null) json.writeObjectField(name, value);
+    }
+
+    private void writeJsonLine(Map<String, Object> value, Writer writer) throws IOException {
+        writer.write(objectMapper.writeValueAsString(value));
+        writer.write('\n');
+    }
+
+    private String csvLine(Object... values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) line.append(',');
+            if (values[i] != null) line.append(csvEscape(values[i].toString()));
+        }
+        return line.append('\n').toString();
+    }
+
+    private String csvEscape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
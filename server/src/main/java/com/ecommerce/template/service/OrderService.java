@@ -1,22 +1,35 @@
 package com.ecommerce.template.service;
 
+import com.ecommerce.template.dto.OrderDetailDTO;
+import com.ecommerce.template.dto.OrderItemDTO;
+import com.ecommerce.template.dto.OrderSummaryDTO;
+import com.ecommerce.template.dto.PageDTO;
 import com.ecommerce.template.dto.PaymentRequestDTO;
 import com.ecommerce.template.model.*;
 import com.ecommerce.template.repository.CartRepository;
 import com.ecommerce.template.repository.OrderRepository;
-import com.ecommerce.template.repository.ProductRepository;
 import com.ecommerce.template.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -24,22 +37,34 @@ public class OrderService {
     private CartRepository cartRepository;
 
     @Autowired
-    private ProductRepository productRepository;
+    private UserRepository userRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private CartStore cartStore;
 
     // Helper para obtener usuario actual
+    // Sale del principal que armó el filtro JWT (id + rol desde el token): no consulta la base
     private User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (!(principal instanceof User user)) {
+            throw new RuntimeException("Usuario no encontrado");
+        }
+        return user;
     }
 
+    @Timed(value = "orders.create", histogram = true)
     @Transactional // IMPORTANTE: Si algo falla (ej: sin stock), se deshacen todos los cambios
     public Order createOrder(PaymentRequestDTO request, String userEmail) {
         User user = getCurrentUser();
-        Cart cart = cartRepository.findByUser(user)
+        // Con el store write-behind el carrito puede estar solo en memoria: OrderController lo vuelca
+        // (CartService.checkout) antes de entrar a esta transacción
+        Cart cart = cartRepository.findWithItemsByUserId(user.getId())
                 .orElseThrow(() -> new RuntimeException("El carrito no existe"));
 
         List<CartItem> cartItems = cart.getItems();
@@ -54,21 +79,22 @@ public class OrderService {
         for (CartItem item : cartItems) {
             Product product = item.getProduct();
 
+            // Chequeo rápido para dar un mensaje claro; la garantía real la da la reserva atómica de abajo
             if (product.getStock() < item.getQuantity()) {
                 throw new RuntimeException("Stock insuficiente para: " + product.getName());
             }
 
-            // Restar stock
-            product.setStock(product.getStock() - item.getQuantity());
-            productRepository.save(product);
-
             // Sumar al total
             BigDecimal itemTotal = product.getPrice().multiply(new BigDecimal(item.getQuantity()));
             total = total.add(itemTotal);
         }
 
+        // Restar stock: UPDATE condicional por producto (nunca deja el stock negativo aunque haya compras simultáneas)
+        stockService.reserve(cartItems.stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItem::getQuantity, Integer::sum)));
+
         // 2. Crear la Orden
-        Order order = new Order(user, total, OrderStatus.PENDIENTE);
+        Order order = new Order(userRepository.getReferenceById(user.getId()), total, OrderStatus.PENDIENTE);
 
         // 3. Convertir CartItems a OrderItems (Snapshot de precio)
         List<OrderItem> orderItems = cartItems.stream().map(cartItem -> {
@@ -85,16 +111,22 @@ public class OrderService {
 
         order.setItems(orderItems);
         Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(SalesChangedEvent.forNewOrder(savedOrder));
 
         // 4. Vaciar el Carrito (Borrado físico de items)
-        cart.getItems().clear();
-        cartRepository.save(cart);
+        // (antes de limpiar, avisamos al catálogo que cambió el stock de estos productos; se aplica post-commit)
+        eventPublisher.publishEvent(CatalogChangedEvent.forProducts(
+                cartItems.stream().map(CartItem::getProduct).toList()));
+        cart.clearItems(); // orphanRemoval borra los items al commit
+        cartStore.evict(user.getId());
 
         return savedOrder;
     }
 
-    public Order updateOrderStatus(Long orderId, OrderStatus newStatus) {
-        Order order = orderRepository.findById(orderId)
+    // Devuelve el detalle armado dentro de la transacción (usuario, items y productos vienen en la misma consulta)
+    @Transactional
+    public OrderDetailDTO updateOrderStatus(Long orderId, OrderStatus newStatus) {
+        Order order = orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
 
         User currentUser = getCurrentUser();
@@ -116,24 +148,82 @@ public class OrderService {
             }
         }
 
+        // Cancelar devuelve el stock reservado; reactivar una cancelada lo vuelve a reservar
+        OrderStatus previousStatus = order.getStatus();
+        if (newStatus == OrderStatus.CANCELADO && previousStatus != OrderStatus.CANCELADO) {
+            stockService.release(quantitiesByProduct(order));
+            eventPublisher.publishEvent(CatalogChangedEvent.forProducts(
+                    order.getItems().stream().map(OrderItem::getProduct).toList()));
+        } else if (previousStatus == OrderStatus.CANCELADO && newStatus != OrderStatus.CANCELADO) {
+            stockService.reserve(quantitiesByProduct(order));
+            eventPublisher.publishEvent(CatalogChangedEvent.forProducts(
+                    order.getItems().stream().map(OrderItem::getProduct).toList()));
+        }
+
+        eventPublisher.publishEvent(SalesChangedEvent.forStatusChange(order, previousStatus, newStatus));
         order.setStatus(newStatus);
-        return orderRepository.save(order);
+        return convertToDetailDTO(orderRepository.save(order));
+    }
+
+    private Map<Long, Integer> quantitiesByProduct(Order order) {
+        return order.getItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), OrderItem::getQuantity, Integer::sum));
     }
 
-    // Y ya que estamos, un método para ver TODAS las órdenes (para el Admin)
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+    // --- LISTADOS PAGINADOS (DTOs planos, fecha descendente) ---
+    // from/to son días completos: [from 00:00, to + 1 día 00:00)
+
+    public PageDTO<OrderSummaryDTO> getOrderPage(OrderStatus status, LocalDate from, LocalDate to, int page, int size) {
+        return PageDTO.fromSlice(orderRepository.findSummaries(
+                status, startOf(from), endOf(to), toPageable(page, size)));
     }
 
-    public List<Order> getUserOrders() {
-        User user = getCurrentUser(); // Ya tenías este helper
-        // Buscamos las órdenes de este usuario
-        return orderRepository.findByUser(user);
+    public PageDTO<OrderSummaryDTO> getUserOrderPage(OrderStatus status, LocalDate from, LocalDate to, int page, int size) {
+        User user = getCurrentUser();
+        return PageDTO.fromSlice(orderRepository.findSummariesByUser(
+                user.getId(), status, startOf(from), endOf(to), toPageable(page, size)));
     }
 
-    public Order getOrderById(Long id) {
-        return orderRepository.findById(id)
+    // Detalle de una orden: solo el dueño o un admin
+    public OrderDetailDTO getOrderDetail(Long id) {
+        User user = getCurrentUser();
+        Order order = orderRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
+
+        if (!order.getUser().getId().equals(user.getId()) && !"ADMIN".equals(user.getRole())) {
+            throw new RuntimeException("Orden no encontrada");
+        }
+
+        return convertToDetailDTO(order);
+    }
+
+    private Pageable toPageable(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+    }
+
+    private LocalDateTime startOf(LocalDate from) {
+        return from != null ? from.atStartOfDay() : null;
+    }
+
+    private LocalDateTime endOf(LocalDate to) {
+        return to != null ? to.plusDays(1).atStartOfDay() : null;
+    }
+
+    public OrderDetailDTO convertToDetailDTO(Order order) {
+        User user = order.getUser();
+        List<OrderItemDTO> items = order.getItems().stream()
+                .map(item -> new OrderItemDTO(
+                        item.getId(),
+                        item.getProduct().getId(),
+                        item.getProduct().getName(),
+                        item.getProduct().getImageUrl(),
+                        item.getQuantity(),
+                        item.getPrice()))
+                .collect(Collectors.toList());
+
+        return new OrderDetailDTO(order.getId(), order.getDate(), order.getTotal(), order.getStatus(),
+                order.getDeliveryMethod(), order.getShippingAddress(),
+                user.getId(), user.getUsername(), user.getEmail(), items);
     }
 
     // ✨ NUEVO MÉTODO: Para uso exclusivo del Webhook (Sistema)
@@ -144,6 +234,7 @@ public class OrderService {
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada: " + orderId));
         
         if (order.getStatus() == OrderStatus.PENDIENTE) {
+            eventPublisher.publishEvent(SalesChangedEvent.forStatusChange(order, OrderStatus.PENDIENTE, OrderStatus.PAGADO));
             order.setStatus(OrderStatus.PAGADO);
             orderRepository.save(order);
             // Aquí podrías agregar lógica extra: enviar email, descontar stock si no se hizo antes, etc.
@@ -2,7 +2,6 @@ package com.ecommerce.template.service;
 
 import com.ecommerce.template.dto.PaymentRequestDTO;
 import com.ecommerce.template.model.Order;
-import com.ecommerce.template.model.OrderStatus;
 import com.ecommerce.template.repository.OrderRepository;
 
 import com.mercadopago.MercadoPagoConfig;
@@ -20,10 +19,14 @@ import com.mercadopago.client.preference.PreferenceRequest;
 import com.mercadopago.resources.preference.Preference;
 import com.mercadopago.exceptions.MPApiException;
 
+import com.ecommerce.template.service.UpstreamLimiter.Upstream;
+
+import io.micrometer.core.annotation.Timed;
 import jakarta.annotation.PostConstruct;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor; // ✨ Lombok
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -34,8 +37,12 @@ import java.util.List;
 @RequiredArgsConstructor // 1. Genera constructor para los campos 'final'
 public class PaymentService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
+
     // 2. Inyección robusta: Repositorio como 'final'
     private final OrderRepository orderRepository;
+    private final UpstreamLimiter upstreamLimiter;
+    private final OrderService orderService;
 
     // 3. Variables de configuración (Spring las inyecta después del constructor)
     @Value("${mercadopago.access-token}")
@@ -50,95 +57,55 @@ public class PaymentService {
     }
 
     // 1. PROCESAR PAGO (BRICK)
+    // Todo el método corre dentro del cupo de MP: mientras espera turno no toca la base,
+    // así una pasarela lenta retiene como mucho 'upstream.mercadopago.max-concurrent' conexiones
+    @Timed(value = "mercadopago.requests", extraTags = {"operation", "create_payment"}, histogram = true)
     public Payment processPayment(PaymentRequestDTO request) {
         try {
-            Order order = orderRepository.findById(request.getOrderId())
-                    .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
-
-            PaymentClient client = new PaymentClient();
+            return upstreamLimiter.call(Upstream.MERCADOPAGO, () -> doProcessPayment(request));
+        } catch (UpstreamBusyException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("❌ [PAGOS] Error al procesar el pago de la orden #{} con MP", request.getOrderId(), e);
+            throw new RuntimeException("Error al procesar el pago con MP: " + e.getMessage());
+        }
+    }
 
-            PaymentCreateRequest paymentCreateRequest = PaymentCreateRequest.builder()
-                    .transactionAmount(request.getTransactionAmount())
-                    .token(request.getToken())
-                    .description("PixelArt Show - Orden #" + order.getId())
-                    .installments(request.getInstallments())
-                    .paymentMethodId(request.getPaymentMethodId())
-                    .payer(PaymentPayerRequest.builder()
-                            .email(request.getPayer().getEmail())
-                            .build())
-                    .externalReference(order.getId().toString())
-                    .build();
+    private Payment doProcessPayment(PaymentRequestDTO request) throws Exception {
+        Order order = orderRepository.findById(request.getOrderId())
+                .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
 
-            Payment payment = client.create(paymentCreateRequest);
+        PaymentClient client = new PaymentClient();
 
-            if ("approved".equals(payment.getStatus())) {
-                order.setStatus(OrderStatus.PAGADO);
-                orderRepository.save(order);
-            }
+        PaymentCreateRequest paymentCreateRequest = PaymentCreateRequest.builder()
+                .transactionAmount(request.getTransactionAmount())
+                .token(request.getToken())
+                .description("PixelArt Show - Orden #" + order.getId())
+                .installments(request.getInstallments())
+                .paymentMethodId(request.getPaymentMethodId())
+                .payer(PaymentPayerRequest.builder()
+                        .email(request.getPayer().getEmail())
+                        .build())
+                .externalReference(order.getId().toString())
+                .build();
 
-            return payment;
+        Payment payment = client.create(paymentCreateRequest);
 
-        } catch (Exception e) {
-            e.printStackTrace(); // Recomendación: Usar Logger en lugar de printStackTrace
-            throw new RuntimeException("Error al procesar el pago con MP: " + e.getMessage());
+        if ("approved".equals(payment.getStatus())) {
+            orderService.approveOrderPayment(order.getId()); // Mismo camino que el webhook (actualiza métricas)
         }
+
+        return payment;
     }
 
     // 2. CREAR PREFERENCIA (BOTÓN WALLET)
-    @Transactional
+    // Sin @Transactional: no tiene sentido mantener una transacción abierta durante la llamada a MP
+    @Timed(value = "mercadopago.requests", extraTags = {"operation", "create_preference"}, histogram = true)
     public String createPreference(Long orderId) {
         try {
-            Order order = orderRepository.findById(orderId)
-                    .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
-
-            // 🛡️ BLINDAJE: Aseguramos que la URL nunca sea nula o vacía
-            String urlBase = (frontendUrl != null && !frontendUrl.isBlank()) ? frontendUrl : "http://localhost:5173";
-
-            // 4. LÓGICA SIMPLIFICADA: Confiamos en el @Value
-            // Esto tomará lo que haya en application.properties o localhost por defecto
-            String successUrl = urlBase + "/profile";
-            String failureUrl = urlBase + "/cart";
-
-            System.out.println("🔹 URL Base usada: " + urlBase); // Log para verificar
-
-            // --- 1. ITEM ---
-            PreferenceItemRequest itemRequest = PreferenceItemRequest.builder()
-                    .title("GamerStore - Compra #" + order.getId())
-                    .quantity(1)
-                    .unitPrice(order.getTotal())
-                    .currencyId("ARS")
-                    .build();
-
-            List<PreferenceItemRequest> items = new ArrayList<>();
-            items.add(itemRequest);
-
-            // --- 2. PAYER ---
-            String userEmail = (order.getUser() != null) ? order.getUser().getEmail() : "guest@pixelart.com";
-            PreferencePayerRequest payerRequest = PreferencePayerRequest.builder()
-                    .email(userEmail)
-                    .build();
-
-            // --- 3. BACK URLS (Redirección al terminar pago) ---
-            PreferenceBackUrlsRequest backUrls = PreferenceBackUrlsRequest.builder()
-                    .success(successUrl)
-                    .failure(failureUrl)
-                    .pending(successUrl) // Usualmente 'pending' también va a una página de éxito o espera
-                    .build();
-
-            // --- 4. REQUEST ---
-            PreferenceRequest preferenceRequest = PreferenceRequest.builder()
-                    .items(items)
-                    .payer(payerRequest)
-                    .backUrls(backUrls)
-                    // .autoReturn("approved") // ✨ Recomendación: Actívalo para mejorar UX (vuelve solo a tu web)
-                    .externalReference(order.getId().toString())
-                    .build();
-
-            PreferenceClient client = new PreferenceClient();
-            Preference preference = client.create(preferenceRequest);
-
-            return preference.getId();
-
+            return upstreamLimiter.call(Upstream.MERCADOPAGO, () -> doCreatePreference(orderId));
+        } catch (UpstreamBusyException e) {
+            throw e;
         } catch (MPApiException e) {
             throw new RuntimeException("MP Error: " + e.getApiResponse().getContent());
         } catch (Exception e) {
@@ -146,11 +113,67 @@ public class PaymentService {
         }
     }
 
+    private String doCreatePreference(Long orderId) throws Exception {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
+
+        // 🛡️ BLINDAJE: Aseguramos que la URL nunca sea nula o vacía
+        String urlBase = (frontendUrl != null && !frontendUrl.isBlank()) ? frontendUrl : "http://localhost:5173";
+
+        // 4. LÓGICA SIMPLIFICADA: Confiamos en el @Value
+        // Esto tomará lo que haya en application.properties o localhost por defecto
+        String successUrl = urlBase + "/profile";
+        String failureUrl = urlBase + "/cart";
+
+        logger.debug("🔹 [PAGOS] URL base de retorno: {}", urlBase);
+
+        // --- 1. ITEM ---
+        PreferenceItemRequest itemRequest = PreferenceItemRequest.builder()
+                .title("GamerStore - Compra #" + order.getId())
+                .quantity(1)
+                .unitPrice(order.getTotal())
+                .currencyId("ARS")
+                .build();
+
+        List<PreferenceItemRequest> items = new ArrayList<>();
+        items.add(itemRequest);
+
+        // --- 2. PAYER ---
+        String userEmail = (order.getUser() != null) ? order.getUser().getEmail() : "guest@pixelart.com";
+        PreferencePayerRequest payerRequest = PreferencePayerRequest.builder()
+                .email(userEmail)
+                .build();
+
+        // --- 3. BACK URLS (Redirección al terminar pago) ---
+        PreferenceBackUrlsRequest backUrls = PreferenceBackUrlsRequest.builder()
+                .success(successUrl)
+                .failure(failureUrl)
+                .pending(successUrl) // Usualmente 'pending' también va a una página de éxito o espera
+                .build();
+
+        // --- 4. REQUEST ---
+        PreferenceRequest preferenceRequest = PreferenceRequest.builder()
+                .items(items)
+                .payer(payerRequest)
+                .backUrls(backUrls)
+                // .autoReturn("approved") // ✨ Recomendación: Actívalo para mejorar UX (vuelve solo a tu web)
+                .externalReference(order.getId().toString())
+                .build();
+
+        PreferenceClient client = new PreferenceClient();
+        Preference preference = client.create(preferenceRequest);
+
+        return preference.getId();
+    }
+
     // 3. CONSULTAR ESTADO DE PAGO (Para Webhook)
+    @Timed(value = "mercadopago.requests", extraTags = {"operation", "get_payment"}, histogram = true)
     public Payment getPaymentById(Long paymentId) {
         try {
             PaymentClient client = new PaymentClient();
-            return client.get(paymentId);
+            return upstreamLimiter.call(Upstream.MERCADOPAGO, () -> client.get(paymentId));
+        } catch (UpstreamBusyException e) {
+            throw e;
         } catch (MPApiException e) {
             throw new RuntimeException("Error al consultar pago MP: " + e.getApiResponse().getContent());
         } catch (Exception e) {
@@ -0,0 +1,205 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.BulkPriceUpdateDTO;
+import com.ecommerce.template.dto.BulkStockUpdateDTO;
+import com.ecommerce.template.dto.BulkUpdateResultDTO;
+import com.ecommerce.template.dto.BulkUpdateResultDTO.Change;
+import com.ecommerce.template.repository.ProductBulkRow;
+import com.ecommerce.template.repository.ProductRepository;
+
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Ajustes masivos de precio y stock con sentencias por conjunto (sin cargar ni guardar producto por producto).
+// Solo modifican la tabla products: el precio histórico de cada OrderItem no se toca
+@Service
+public class ProductBulkUpdateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductBulkUpdateService.class);
+
+    private static final String SET_STOCK_SQL = "UPDATE products SET stock = ? WHERE sku = ?";
+    // Igual que la reserva de StockService: si el stock quedaría negativo no actualiza y devuelve 0 filas
+    private static final String INCREMENT_STOCK_SQL = "UPDATE products SET stock = stock + ? WHERE sku = ? AND stock + ? >= 0";
+
+    private static final BigDecimal MAX_PERCENT = new BigDecimal("1000");
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final SecondLevelCache secondLevelCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int previewSize;
+
+    public ProductBulkUpdateService(
+            ProductRepository productRepository,
+            JdbcTemplate jdbcTemplate,
+            SecondLevelCache secondLevelCache,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${catalog.bulk.batch-size:500}") int batchSize,
+            @Value("${catalog.bulk.preview-size:20}") int previewSize) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.secondLevelCache = secondLevelCache;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.previewSize = previewSize;
+    }
+
+    // PRECIOS: un único UPDATE con el filtro; antes se cuenta y se valida que ningún precio quede <= 0
+    @Transactional
+    public BulkUpdateResultDTO adjustPrices(BulkPriceUpdateDTO request) {
+        if ((request.getPercent() == null) == (request.getAmount() == null)) {
+            throw new IllegalArgumentException("Indicar percent o amount (uno de los dos)");
+        }
+        // Porcentaje y monto con hasta 2 decimales: se pasan como enteros (puntos básicos y centavos)
+        long factor = 10_000;
+        long delta = 0;
+        if (request.getPercent() != null) {
+            BigDecimal percent = request.getPercent();
+            if (percent.signum() == 0 || percent.compareTo(BigDecimal.valueOf(-100)) <= 0 || percent.compareTo(MAX_PERCENT) > 0) {
+                throw new IllegalArgumentException("El porcentaje debe ser distinto de 0, mayor a -100 y hasta " + MAX_PERCENT);
+            }
+            factor += toHundredths(percent);
+        } else {
+            if (request.getAmount().signum() == 0) throw new IllegalArgumentException("El monto no puede ser 0");
+            delta = toHundredths(request.getAmount());
+        }
+
+        Long categoryId = request.getCategoryId();
+        String name = (request.getName() != null && !request.getName().isBlank())
+                ? ProductRepository.containsPattern(request.getName().trim().toLowerCase())
+                : null;
+        Boolean active = request.getActive();
+
+        long affected = productRepository.countForBulk(categoryId, name, active);
+        long nonPositive = productRepository.countNonPositiveAfterAdjust(factor, delta, categoryId, name, active);
+        if (nonPositive > 0) {
+            throw new IllegalArgumentException("El ajuste dejaría " + nonPositive + " productos con precio menor o igual a 0");
+        }
+
+        if (request.isDryRun()) {
+            List<Change> preview = new ArrayList<>();
+            for (ProductBulkRow row : productRepository.findBulkPreview(categoryId, name, active, PageRequest.of(0, previewSize))) {
+                BigDecimal after = row.getPrice().multiply(BigDecimal.valueOf(factor)).add(BigDecimal.valueOf(delta * 100))
+                        .divide(BigDecimal.valueOf(10_000), 2, RoundingMode.HALF_UP);
+                preview.add(new Change(row.getId(), row.getSku(), row.getName(), row.getPrice(), after));
+            }
+            logger.info("🧪 [AJUSTE MASIVO] Simulación de precios: {} productos (factor {} pb, delta {} centavos)", affected, factor, delta);
+            return new BulkUpdateResultDTO(true, affected, preview, List.of());
+        }
+
+        int updated = productRepository.adjustPrices(factor, delta, categoryId, name, active);
+        logger.info("💲 [AJUSTE MASIVO] Precios actualizados: {} productos (factor {} pb, delta {} centavos)", updated, factor, delta);
+        if (updated > 0) invalidateCatalog();
+        return new BulkUpdateResultDTO(false, updated, List.of(), List.of());
+    }
+
+    // STOCK: UPDATE por SKU en batches JDBC dentro de una transacción.
+    // Los SKUs inexistentes (o que quedarían con stock negativo) se informan en skipped, no cortan el resto
+    @Transactional
+    public BulkUpdateResultDTO updateStock(BulkStockUpdateDTO request) {
+        if (request.getMode() == null) throw new IllegalArgumentException("Indicar mode: SET o INCREMENT");
+        if (request.getItems() == null || request.getItems().isEmpty()) throw new IllegalArgumentException("La lista de items está vacía");
+        boolean set = request.getMode() == BulkStockUpdateDTO.Mode.SET;
+
+        // SKU repetido: con SET gana el último, con INCREMENT se suman.
+        // Ordenados por SKU para que dos ajustes simultáneos bloqueen las filas en el mismo orden
+        TreeMap<String, Integer> quantities = new TreeMap<>();
+        for (BulkStockUpdateDTO.Item item : request.getItems()) {
+            if (item.getSku() == null || item.getSku().isBlank() || item.getQuantity() == null) {
+                throw new IllegalArgumentException("Cada item necesita sku y quantity");
+            }
+            if (set && item.getQuantity() < 0) {
+                throw new IllegalArgumentException("El stock no puede ser negativo (SKU " + item.getSku() + ")");
+            }
+            quantities.merge(item.getSku().trim(), item.getQuantity(), set ? (previous, next) -> next : Integer::sum);
+        }
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(quantities.entrySet());
+
+        if (request.isDryRun()) {
+            return previewStock(entries, set);
+        }
+
+        int[][] updated = set
+                ? jdbcTemplate.batchUpdate(SET_STOCK_SQL, entries, batchSize, (ps, entry) -> {
+                    ps.setInt(1, entry.getValue());
+                    ps.setString(2, entry.getKey());
+                })
+                : jdbcTemplate.batchUpdate(INCREMENT_STOCK_SQL, entries, batchSize, (ps, entry) -> {
+                    ps.setInt(1, entry.getValue());
+                    ps.setString(2, entry.getKey());
+                    ps.setInt(3, entry.getValue());
+                });
+
+        long affected = 0;
+        List<String> skipped = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : updated) {
+            for (int count : batch) {
+                if (count != 0) affected++; // SUCCESS_NO_INFO (-2) cuenta como aplicado
+                else skipped.add(entries.get(index).getKey());
+                index++;
+            }
+        }
+
+        logger.info("📦 [AJUSTE MASIVO] Stock {}: {} productos actualizados, {} SKUs omitidos",
+                request.getMode(), affected, skipped.size());
+        if (affected > 0) invalidateCatalog();
+        return new BulkUpdateResultDTO(false, affected, List.of(), skipped);
+    }
+
+    private static long toHundredths(BigDecimal value) {
+        if (value.stripTrailingZeros().scale() > 2) throw new IllegalArgumentException("Se admiten hasta 2 decimales: " + value);
+        return value.movePointRight(2).longValueExact();
+    }
+
+    private BulkUpdateResultDTO previewStock(List<Map.Entry<String, Integer>> entries, boolean set) {
+        Map<String, ProductBulkRow> rowsBySku = new HashMap<>();
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<String> skus = entries.subList(from, Math.min(from + batchSize, entries.size())).stream()
+                    .map(Map.Entry::getKey)
+                    .toList();
+            for (ProductBulkRow row : productRepository.findBulkRowsBySku(skus)) {
+                rowsBySku.put(row.getSku(), row);
+            }
+        }
+
+        long affected = 0;
+        List<Change> preview = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : entries) {
+            ProductBulkRow row = rowsBySku.get(entry.getKey());
+            int after = row == null ? -1 : set ? entry.getValue() : row.getStock() + entry.getValue();
+            if (after < 0) {
+                skipped.add(entry.getKey());
+                continue;
+            }
+            affected++;
+            if (preview.size() < previewSize) {
+                preview.add(new Change(row.getId(), row.getSku(), row.getName(), row.getStock(), after));
+            }
+        }
+        logger.info("🧪 [AJUSTE MASIVO] Simulación de stock: {} productos, {} SKUs omitidos", affected, skipped.size());
+        return new BulkUpdateResultDTO(true, affected, preview, skipped);
+    }
+
+    // Una sola invalidación por ajuste: L2 (las escrituras por JDBC/JPQL no pasan por las entidades) y cachés del catálogo
+    private void invalidateCatalog() {
+        secondLevelCache.evictAllProducts();
+        eventPublisher.publishEvent(CatalogChangedEvent.forAllProducts());
+    }
+}
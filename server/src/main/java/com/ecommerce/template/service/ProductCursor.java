@@ -0,0 +1,56 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.ProductDTO;
+import com.ecommerce.template.model.ProductSortOrder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Cursor opaco del catálogo: guarda el orden usado + la clave de la última fila entregada
+// Formato interno (antes de Base64): ORDEN|id|valor
+record ProductCursor(ProductSortOrder sortOrder, Long lastId, Object lastValue) {
+
+    static ProductCursor after(ProductSortOrder sortOrder, ProductDTO last) {
+        Object value = switch (sortOrder) {
+            case PRICE_ASC, PRICE_DESC -> last.getPrice();
+            case ALPHA_ASC, ALPHA_DESC -> last.getName();
+            case DEFAULT -> null;
+        };
+        return new ProductCursor(sortOrder, last.getId(), value);
+    }
+
+    String encode() {
+        String value = lastValue instanceof BigDecimal price ? price.toPlainString()
+                : lastValue != null ? lastValue.toString() : "";
+        String raw = sortOrder.name() + "|" + lastId + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // El cursor tiene que corresponder al mismo orden pedido, si no la condición keyset no tiene sentido
+    static ProductCursor decode(String cursor, ProductSortOrder expected) {
+        String[] parts;
+        ProductSortOrder sortOrder;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            parts = raw.split("\\|", 3);
+            sortOrder = ProductSortOrder.valueOf(parts[0]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+        if (sortOrder != expected) {
+            throw new IllegalArgumentException("El cursor no corresponde al orden solicitado");
+        }
+        try {
+            Long lastId = Long.parseLong(parts[1]);
+            Object value = switch (sortOrder) {
+                case PRICE_ASC, PRICE_DESC -> new BigDecimal(parts[2]);
+                case ALPHA_ASC, ALPHA_DESC -> parts[2];
+                case DEFAULT -> null;
+            };
+            return new ProductCursor(sortOrder, lastId, value);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.ProductImportResultDTO;
+import com.ecommerce.template.dto.ProductImportResultDTO.RowError;
+import com.ecommerce.template.model.Category;
+import com.ecommerce.template.repository.CategoryRepository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Importación masiva de productos (feeds de proveedores) en CSV o NDJSON.
+// El archivo se lee fila por fila desde el request; las filas válidas se acumulan en tramos que se
+// escriben con INSERT ... ON CONFLICT (sku) en batches JDBC, un tramo por transacción.
+// Las cachés del catálogo y la L2 se invalidan UNA vez al final, no por producto
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    public enum Format {
+        CSV("text/csv"),
+        NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        // "text/csv; charset=UTF-8" -> CSV
+        public static Format fromContentType(String value) {
+            if (value != null) {
+                String mimeType = value.split(";")[0].trim();
+                for (Format format : values()) {
+                    if (format.contentType.equalsIgnoreCase(mimeType)) return format;
+                }
+            }
+            throw new RuntimeException("Formato de importación inválido: " + value + " (usar text/csv o application/x-ndjson)");
+        }
+    }
+
+    // Columnas: sku, name, price, stock, category (nombre) o category_id, y opcionales description, image_url, active.
+    // Si description o image_url vienen vacías se conserva lo que ya tenía el producto; active vacío = true
+    private static final String UPSERT_SQL = "INSERT INTO products " +
+            "(sku, name, price, stock, category_id, description, image_url, is_active) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, COALESCE(?, true)) " +
+            "ON CONFLICT (sku) DO UPDATE SET " +
+            "name = EXCLUDED.name, price = EXCLUDED.price, stock = EXCLUDED.stock, category_id = EXCLUDED.category_id, " +
+            "description = COALESCE(EXCLUDED.description, products.description), " +
+            "image_url = COALESCE(EXCLUDED.image_url, products.image_url), " +
+            "is_active = EXCLUDED.is_active";
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("sku", "name", "price", "stock");
+
+    private record ImportRow(int line, String sku, String name, BigDecimal price, int stock, long categoryId,
+                             String description, String imageUrl, Boolean active) {}
+
+    // Fila tal cual se leyó (columna -> valor), o el error de formato si no se pudo leer
+    private record RawRow(int line, Map<String, String> values, String parseError) {}
+
+    private interface RowSource {
+        RawRow next() throws IOException;
+    }
+
+    // Contadores de una importación en curso; solo se reportan los primeros maxErrors errores
+    private static final class Tally {
+        private final int maxErrors;
+        private final List<RowError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        private Tally(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        private void fail(int line, String sku, String error) {
+            failed++;
+            if (errors.size() < maxErrors) errors.add(new RowError(line, sku, error));
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CategoryRepository categoryRepository;
+    private final ObjectMapper objectMapper;
+    private final SecondLevelCache secondLevelCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public ProductImportService(
+            JdbcTemplate jdbcTemplate,
+            CategoryRepository categoryRepository,
+            ObjectMapper objectMapper,
+            SecondLevelCache secondLevelCache,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${catalog.import.batch-size:500}") int batchSize,
+            @Value("${catalog.import.chunk-size:5000}") int chunkSize,
+            @Value("${catalog.import.max-reported-errors:500}") int maxReportedErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.categoryRepository = categoryRepository;
+        this.objectMapper = objectMapper;
+        this.secondLevelCache = secondLevelCache;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ProductImportResultDTO importProducts(Format format, InputStream in) throws IOException {
+        long start = System.currentTimeMillis();
+        logger.info("📥 [IMPORTACION] Iniciando importación {}", format);
+
+        // Todas las categorías de una vez: resolver el nombre de cada fila es un get en un Map
+        Map<String, Long> categoriesByName = new HashMap<>();
+        Set<Long> categoryIds = new HashSet<>();
+        for (Category category : categoryRepository.findAll()) {
+            categoriesByName.put(normalize(category.getName()), category.getId());
+            categoryIds.add(category.getId());
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        RowSource source = format == Format.CSV ? csvRows(reader) : ndjsonRows(reader);
+
+        long rows = 0;
+        Tally tally = new Tally(maxReportedErrors);
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+
+        RawRow raw;
+        while ((raw = source.next()) != null) {
+            rows++;
+            try {
+                if (raw.parseError() != null) throw new IllegalArgumentException(raw.parseError());
+                chunk.add(toRow(raw, categoriesByName, categoryIds));
+            } catch (IllegalArgumentException e) {
+                tally.fail(raw.line(), raw.values().get("sku"), e.getMessage());
+            }
+            if (chunk.size() >= chunkSize) {
+                writeChunk(chunk, tally);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, tally);
+        }
+
+        if (tally.imported > 0) {
+            secondLevelCache.evictAllProducts();
+            eventPublisher.publishEvent(CatalogChangedEvent.forAllProducts());
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        ProductImportResultDTO result = new ProductImportResultDTO(
+                rows, tally.imported, tally.failed, List.copyOf(tally.errors), tally.failed > tally.errors.size(), elapsed);
+        logger.info("✅ [IMPORTACION] {} filas: {} guardadas, {} rechazadas en {} ms ({} filas/s)",
+                rows, tally.imported, tally.failed, elapsed, result.getRowsPerSecond());
+        return result;
+    }
+
+    // Un tramo = una transacción con varios batches JDBC. Si falla (ej: el mismo SKU dos veces en un batch
+    // reescrito como INSERT multi-fila) se reintenta de a una fila para aislar solo las que fallan
+    private void writeChunk(List<ImportRow> chunk, Tally tally) {
+        try {
+            transaction.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(UPSERT_SQL, chunk, batchSize, this::bind));
+            tally.imported += chunk.size();
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ [IMPORTACION] Falló un tramo de {} filas, reintentando de a una: {}",
+                    chunk.size(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            for (ImportRow row : chunk) {
+                try {
+                    transaction.executeWithoutResult(tx -> jdbcTemplate.update(UPSERT_SQL, ps -> bind(ps, row)));
+                    tally.imported++;
+                } catch (RuntimeException single) {
+                    tally.fail(row.line(), row.sku(), NestedExceptionUtils.getMostSpecificCause(single).getMessage());
+                }
+            }
+        }
+    }
+
+    private void bind(PreparedStatement ps, ImportRow row) throws SQLException {
+        ps.setString(1, row.sku());
+        ps.setString(2, row.name());
+        ps.setBigDecimal(3, row.price());
+        ps.setInt(4, row.stock());
+        ps.setLong(5, row.categoryId());
+        ps.setString(6, row.description());
+        ps.setString(7, row.imageUrl());
+        ps.setObject(8, row.active(), Types.BOOLEAN);
+    }
+
+    // Mismas reglas que ProductDTO (más los largos de columna que el alta manual no valida)
+    private ImportRow toRow(RawRow raw, Map<String, Long> categoriesByName, Set<Long> categoryIds) {
+        Map<String, String> values = raw.values();
+
+        String sku = required(values, "sku");
+        if (sku.length() > 64) throw new IllegalArgumentException("El SKU no puede superar los 64 caracteres");
+
+        String name = required(values, "name");
+        if (name.length() < 2 || name.length() > 100) {
+            throw new IllegalArgumentException("El nombre debe tener entre 2 y 100 caracteres");
+        }
+
+        BigDecimal price;
+        int stock;
+        try {
+            price = new BigDecimal(required(values, "price"));
+            stock = Integer.parseInt(required(values, "stock"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Precio o stock no numérico");
+        }
+        if (price.signum() <= 0) throw new IllegalArgumentException("El precio debe ser mayor a 0");
+        if (stock < 0) throw new IllegalArgumentException("El stock no puede ser negativo");
+
+        Long categoryId;
+        String categoryIdValue = values.get("category_id");
+        if (categoryIdValue != null) {
+            try {
+                categoryId = Long.valueOf(categoryIdValue);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("category_id no numérico: " + categoryIdValue);
+            }
+            if (!categoryIds.contains(categoryId)) throw new IllegalArgumentException("Categoría no encontrada: " + categoryId);
+        } else {
+            String category = required(values, "category");
+            categoryId = categoriesByName.get(normalize(category));
+            if (categoryId == null) throw new IllegalArgumentException("Categoría no encontrada: " + category);
+        }
+
+        String description = values.get("description");
+        if (description != null && description.length() > 2000) {
+            throw new IllegalArgumentException("La descripción es demasiado larga (máx 2000 caracteres)");
+        }
+        String imageUrl = values.get("image_url");
+        if (imageUrl != null && imageUrl.length() > 255) throw new IllegalArgumentException("image_url demasiado larga");
+
+        return new ImportRow(raw.line(), sku, name, price, stock, categoryId, description, imageUrl,
+                toBoolean(values.get("active")));
+    }
+
+    private static String required(Map<String, String> values, String column) {
+        String value = values.get(column);
+        if (value == null) throw new IllegalArgumentException("Falta el campo '" + column + "'");
+        return value;
+    }
+
+    private static Boolean toBoolean(String value) {
+        if (value == null) return null;
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "1", "si", "sí", "yes" -> true;
+            case "false", "0", "no" -> false;
+            default -> throw new IllegalArgumentException("Valor de active inválido: " + value);
+        };
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Vacío o solo espacios cuenta como ausente
+    private static String clean(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // CSV con encabezado: las columnas se buscan por nombre, el orden no importa y las desconocidas se ignoran
+    private RowSource csvRows(BufferedReader reader) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) throw new RuntimeException("El archivo está vacío");
+
+        List<String> columns = new ArrayList<>(header.size());
+        for (String column : header) {
+            columns.add(column.replace("﻿", "").trim().toLowerCase(Locale.ROOT));
+        }
+        List<String> missing = new ArrayList<>(REQUIRED_COLUMNS.stream().filter(c -> !columns.contains(c)).toList());
+        if (!columns.contains("category") && !columns.contains("category_id")) missing.add("category");
+        if (!missing.isEmpty()) throw new RuntimeException("Faltan columnas en el encabezado: " + missing);
+
+        return () -> {
+            List<String> fields;
+            do {
+                fields = csv.next();
+                if (fields == null) return null;
+            } while (fields.stream().allMatch(String::isBlank));
+
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < columns.size() && i < fields.size(); i++) {
+                String value = clean(fields.get(i));
+                if (value != null) values.put(columns.get(i), value);
+            }
+            String error = fields.size() > columns.size()
+                    ? "La fila tiene " + fields.size() + " columnas y el encabezado " + columns.size() : null;
+            return new RawRow(csv.recordLine(), values, error);
+        };
+    }
+
+    // NDJSON: un objeto JSON por línea con los mismos nombres de campo que las columnas del CSV
+    private RowSource ndjsonRows(BufferedReader reader) {
+        int[] lineNumber = {0};
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber[0]++;
+                if (line == null) return null;
+            } while (line.isBlank());
+
+            Map<String, String> values = new HashMap<>();
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                if (!node.isObject()) return new RawRow(lineNumber[0], values, "La línea no es un objeto JSON");
+                for (Map.Entry<String, JsonNode> field : node.properties()) {
+                    String value = field.getValue().isNull() ? null : clean(field.getValue().asText());
+                    if (value != null) values.put(field.getKey().toLowerCase(Locale.ROOT), value);
+                }
+                return new RawRow(lineNumber[0], values, null);
+            } catch (IOException e) {
+                return new RawRow(lineNumber[0], values, "JSON inválido");
+            }
+        };
+    }
+}
@@ -1,17 +1,25 @@
 package com.ecommerce.template.service;
 
+import com.ecommerce.template.dto.PageDTO;
 import com.ecommerce.template.dto.ProductDTO;
+import com.ecommerce.template.dto.ProductPageDTO;
 import com.ecommerce.template.model.Category;
 import com.ecommerce.template.model.Product;
+import com.ecommerce.template.model.ProductSortOrder;
 import com.ecommerce.template.repository.CategoryRepository;
 import com.ecommerce.template.repository.ProductRepository;
+import com.ecommerce.template.repository.ProductSearchRow;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor; // Importante
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,37 +31,95 @@ public class ProductService {
     // Inyección por constructor (Lombok se encarga)
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final CatalogCache catalogCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Tope de página para el catálogo paginado (evita que un cliente pida "todo" de nuevo)
+    private static final int MAX_PAGE_SIZE = 100;
 
     // OBTENER PRODUCTOS (CON FILTROS)
+    // Pasa primero por el caché: la clave es la tupla de filtros normalizada
+    @Timed(value = "catalog.products.list", histogram = true)
     public List<ProductDTO> getAllProducts(String name, Long categoryId, Boolean inStock, Boolean active, String sortOrder) {
+        CatalogQueryKey key = CatalogQueryKey.of(name, categoryId, inStock, active, sortOrder);
+        return catalogCache.getProducts(key, () -> findProducts(key));
+    }
+
+    private List<ProductDTO> findProducts(CatalogQueryKey key) {
         logger.info("🔍 [PRODUCTOS] Buscando... Filtros -> Nombre: '{}', CatID: {}, EnStock: {}, Orden: '{}'",
-                name != null ? name : "Todos",
-                categoryId != null ? categoryId : "Todas",
-                inStock,
-                sortOrder);
+                key.name() != null ? key.name() : "Todos",
+                key.categoryId() != null ? key.categoryId() : "Todas",
+                key.inStock(),
+                key.sortOrder());
 
-        Integer minStock = (inStock != null && inStock) ? 1 : null;
+        Integer minStock = toMinStock(key.inStock());
+        String searchPattern = toSearchPattern(key.name());
+        Sort sort = key.sortOrder().toSort();
 
-        String searchPattern = (name != null && !name.isEmpty())
-                ? "%" + name.toLowerCase() + "%"
-                : null;
+        List<Product> products = productRepository.findWithFilters(searchPattern, key.categoryId(), minStock, key.active(), sort);
+        logger.info("📦 [PRODUCTOS] Se encontraron {} resultados.", products.size());
+
+        return products.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
 
-        Sort sort = Sort.unsorted();
-        if (sortOrder != null) {
-            switch (sortOrder) {
-                case "price_asc": sort = Sort.by("price").ascending(); break;
-                case "price_desc": sort = Sort.by("price").descending(); break;
-                case "alpha_asc": sort = Sort.by("name").ascending(); break;
-                case "alpha_desc": sort = Sort.by("name").descending(); break;
-            }
+    // OBTENER PÁGINA DEL CATÁLOGO (PAGINADO POR CURSOR)
+    public ProductPageDTO getProductPage(String name, Long categoryId, Boolean inStock, Boolean active,
+            String sortOrder, String cursor, int size) {
+        ProductSortOrder order = ProductSortOrder.fromParam(sortOrder);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        ProductCursor after = (cursor != null && !cursor.isBlank()) ? ProductCursor.decode(cursor, order) : null;
+
+        // Pedimos una fila de más para saber si existe una página siguiente sin hacer COUNT(*)
+        List<ProductDTO> rows = productRepository.findPageWithFilters(
+                toSearchPattern(name),
+                categoryId,
+                toMinStock(inStock),
+                active,
+                order,
+                after != null ? after.lastValue() : null,
+                after != null ? after.lastId() : null,
+                pageSize + 1);
+
+        if (rows.size() <= pageSize) {
+            return new ProductPageDTO(rows, null);
         }
 
-        List<Product> products = productRepository.findWithFilters(searchPattern, categoryId, minStock, active, sort);
-        logger.info("📦 [PRODUCTOS] Se encontraron {} resultados.", products.size());
+        List<ProductDTO> items = rows.subList(0, pageSize);
+        String nextCursor = ProductCursor.after(order, items.get(pageSize - 1)).encode();
+        return new ProductPageDTO(items, nextCursor);
+    }
 
-        return products.stream()
+    // BÚSQUEDA FULL-TEXT (RANKEADA POR RELEVANCIA)
+    // Reemplaza el LIKE '%term%' para el buscador: usa índices GIN y tolera prefijos y typos
+    public PageDTO<ProductDTO> searchProducts(String query, int page, int size) {
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        String term = query != null ? query.trim().toLowerCase() : "";
+        String tsQuery = toPrefixTsQuery(term);
+        if (tsQuery.isEmpty()) {
+            return new PageDTO<>(List.of(), pageNumber, pageSize, false);
+        }
+
+        logger.info("🔎 [PRODUCTOS] Búsqueda full-text: '{}' (página {})", term, pageNumber);
+        List<ProductDTO> rows = productRepository
+                .searchRanked(tsQuery, term, pageSize + 1, (long) pageNumber * pageSize).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
+
+        return PageDTO.fromRows(rows, pageNumber, pageSize);
+    }
+
+    // "teclado mec" -> "teclado:* & mec:*" (cada palabra matchea como prefijo)
+    // Solo dejamos letras y números para que el usuario no pueda inyectar operadores de tsquery
+    private String toPrefixTsQuery(String term) {
+        return Arrays.stream(term.split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isBlank())
+                .map(token -> token + ":*")
+                .collect(Collectors.joining(" & "));
     }
 
     // CREAR PRODUCTO
@@ -75,8 +141,11 @@ public class ProductService {
                     productDTO.getDescription(),
                     true); // Por defecto activo al crear
             
+            product.setSku(blankToNull(productDTO.getSku()));
+
             product = productRepository.save(product);
             logger.info("✅ [PRODUCTOS] Creado exitosamente con ID: {}", product.getId());
+            eventPublisher.publishEvent(CatalogChangedEvent.forProducts(Set.of(product)));
 
             return convertToDTO(product);
         } catch (Exception e) {
@@ -93,6 +162,7 @@ public class ProductService {
                     .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado " + id));
             productRepository.delete(product);
             logger.info("✅ [PRODUCTOS] Eliminado correctamente ID: {}", id);
+            eventPublisher.publishEvent(CatalogChangedEvent.forProducts(Set.of(product)));
         } catch (RuntimeException e) {
             logger.warn("⚠️ [PRODUCTOS] No se pudo eliminar: ID {} no existe o tiene dependencias", id);
             throw new RuntimeException("Error al eliminar producto: " + e.getMessage());
@@ -105,11 +175,16 @@ public class ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID " + id));
 
+        // Guardamos cómo era antes para invalidar también los listados donde aparecía
+        Long oldCategoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+        String oldName = product.getName();
+
         if (productDTO.getName() != null) product.setName(productDTO.getName());
         if (productDTO.getPrice() != null) product.setPrice(productDTO.getPrice());
         if (productDTO.getImageUrl() != null) product.setImageUrl(productDTO.getImageUrl());
         if (productDTO.getStock() != null) product.setStock(productDTO.getStock());
         if (productDTO.getDescription() != null) product.setDescription(productDTO.getDescription());
+        if (productDTO.getSku() != null) product.setSku(blankToNull(productDTO.getSku()));
 
         if (productDTO.getActive() != null) {
             product.setActive(productDTO.getActive());
@@ -123,11 +198,40 @@ public class ProductService {
 
         Product updatedProduct = productRepository.save(product);
         logger.info("✅ [PRODUCTOS] Actualización guardada para ID: {}", id);
+        eventPublisher.publishEvent(CatalogChangedEvent.forProductUpdate(oldCategoryId, oldName, updatedProduct));
         return convertToDTO(updatedProduct);
     }
 
-    private ProductDTO convertToDTO(Product product) {
+    // "" en el formulario = sin SKU (la columna es única, pero admite varios NULL)
+    private String blankToNull(String value) {
+        return (value != null && !value.isBlank()) ? value.trim() : null;
+    }
+
+    private Integer toMinStock(Boolean inStock) {
+        return (inStock != null && inStock) ? 1 : null;
+    }
+
+    private String toSearchPattern(String name) {
+        return (name != null && !name.isEmpty())
+                ? ProductRepository.containsPattern(name.toLowerCase())
+                : null;
+    }
+
+    private ProductDTO convertToDTO(ProductSearchRow row) {
         return new ProductDTO(
+                row.getId(),
+                row.getName(),
+                row.getPrice(),
+                row.getStock(),
+                row.getCategoryName(),
+                row.getCategoryId(),
+                row.getImageUrl(),
+                row.getDescription(),
+                row.getActive());
+    }
+
+    private ProductDTO convertToDTO(Product product) {
+        ProductDTO dto = new ProductDTO(
                 product.getId(),
                 product.getName(),
                 product.getPrice(),
@@ -137,5 +241,7 @@ public class ProductService {
                 product.getImageUrl(),
                 product.getDescription(),
                 product.getActive());
+        dto.setSku(product.getSku());
+        return dto;
     }
 }
\ No newline at end of file
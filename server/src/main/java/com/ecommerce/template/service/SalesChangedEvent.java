@@ -0,0 +1,51 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.model.Order;
+import com.ecommerce.template.model.OrderItem;
+import com.ecommerce.template.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Cambio en las ventas de una orden, expresado como delta para los acumulados:
+// orderSign = +1 (orden creada / reactivada), -1 (cancelada), 0 (sin cambio)
+// paidSign  = +1 (pasó a cobrada), -1 (dejó de contar como cobrada), 0 (sin cambio)
+// Se arma dentro de la transacción (los items están cargados) y se aplica después del commit
+public record SalesChangedEvent(Long orderId, LocalDateTime orderDate, List<Line> lines, int orderSign, int paidSign) {
+
+    public record Line(Long productId, Long categoryId, int units, BigDecimal revenue) {}
+
+    // Orden nueva (nace PENDIENTE: todavía no cobrada)
+    public static SalesChangedEvent forNewOrder(Order order) {
+        return of(order, 1, order.getStatus().isPaid() ? 1 : 0);
+    }
+
+    // Cambio de estado: solo importa si entra/sale de CANCELADO o de los estados cobrados
+    public static SalesChangedEvent forStatusChange(Order order, OrderStatus previous, OrderStatus next) {
+        boolean wasActive = previous != OrderStatus.CANCELADO;
+        boolean isActive = next != OrderStatus.CANCELADO;
+        int orderSign = wasActive == isActive ? 0 : (isActive ? 1 : -1);
+        int paidSign = previous.isPaid() == next.isPaid() ? 0 : (next.isPaid() ? 1 : -1);
+        return of(order, orderSign, paidSign);
+    }
+
+    public static SalesChangedEvent of(Order order, int orderSign, int paidSign) {
+        List<Line> lines = order.getItems().stream()
+                .map(SalesChangedEvent::toLine)
+                .toList();
+        return new SalesChangedEvent(order.getId(), order.getDate(), lines, orderSign, paidSign);
+    }
+
+    private static Line toLine(OrderItem item) {
+        return new Line(
+                item.getProduct().getId(),
+                item.getProduct().getCategory().getId(), // El proxy de la categoría ya conoce su id: no consulta
+                item.getQuantity(),
+                item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty() || (orderSign == 0 && paidSign == 0);
+    }
+}
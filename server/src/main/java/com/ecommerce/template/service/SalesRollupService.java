@@ -0,0 +1,324 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.SalesPointDTO;
+import com.ecommerce.template.dto.SalesRankingDTO;
+import com.ecommerce.template.model.OrderStatus;
+import com.ecommerce.template.model.RollupGranularity;
+import com.ecommerce.template.model.SalesRollup;
+import com.ecommerce.template.repository.SalesRollupRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+// Acumulados de ventas por hora/día y producto (más una fila total por balde):
+// - Incremental: cada alta/pago/cancelación de una orden suma o resta su delta después del commit
+// - Reconstrucción: recalcula todo desde orders/order_items en tramos de ids procesados en paralelo.
+//   Mientras corre, los cambios incrementales no se aplican: se anota el día de la orden y al final
+//   esos días se recalculan completos desde el historial (así nada se cuenta dos veces ni se pierde)
+// Si la app se cae entre el commit de la orden y el upsert, el acumulado queda corto hasta la próxima reconstrucción
+@Service
+public class SalesRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private static final int MAX_SERIES_DAYS = 366;
+    private static final int MAX_HOURLY_DAYS = 31;
+
+    private static final String ON_CONFLICT_ADD = " ON CONFLICT (granularity, bucket_start, product_id) DO UPDATE SET " +
+            "category_id = EXCLUDED.category_id, " +
+            "revenue = sales_rollups.revenue + EXCLUDED.revenue, " +
+            "units = sales_rollups.units + EXCLUDED.units, " +
+            "order_count = sales_rollups.order_count + EXCLUDED.order_count, " +
+            "paid_revenue = sales_rollups.paid_revenue + EXCLUDED.paid_revenue, " +
+            "paid_units = sales_rollups.paid_units + EXCLUDED.paid_units";
+
+    private static final String COLUMNS = "INSERT INTO sales_rollups " +
+            "(granularity, bucket_start, product_id, category_id, revenue, units, order_count, paid_revenue, paid_units) ";
+
+    private static final String UPSERT_SQL = COLUMNS + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)" + ON_CONFLICT_ADD;
+
+    private static final String PAID_STATUSES = Arrays.stream(OrderStatus.values())
+            .filter(OrderStatus::isPaid)
+            .map(status -> "'" + status.name() + "'")
+            .collect(Collectors.joining(", "));
+
+    private static final String HISTORY_FROM = "FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "JOIN products p ON p.id = oi.product_id " +
+            "WHERE o.status <> 'CANCELADO' AND ";
+
+    private static final String BY_ID_RANGE = "o.id >= ? AND o.id < ? ";
+    private static final String BY_DATE_RANGE = "o.date >= ? AND o.date < ? ";
+
+    private static final String HISTORY_MEASURES = "SUM(oi.price * oi.quantity), SUM(oi.quantity), COUNT(DISTINCT o.id), " +
+            "SUM(CASE WHEN o.status IN (" + PAID_STATUSES + ") THEN oi.price * oi.quantity ELSE 0 END), " +
+            "SUM(CASE WHEN o.status IN (" + PAID_STATUSES + ") THEN oi.quantity ELSE 0 END) ";
+
+    // Tramos de la reconstrucción (por id) y días recalculados al final (por fecha)
+    private static final String REBUILD_PRODUCTS_SQL = productsSql(BY_ID_RANGE);
+    private static final String REBUILD_TOTALS_SQL = totalsSql(BY_ID_RANGE);
+    private static final String DAY_PRODUCTS_SQL = productsSql(BY_DATE_RANGE);
+    private static final String DAY_TOTALS_SQL = totalsSql(BY_DATE_RANGE);
+
+    private static final String DELETE_DAY_SQL = "DELETE FROM sales_rollups WHERE bucket_start >= ? AND bucket_start < ?";
+
+    // ORDER BY en la misma secuencia que los upserts incrementales: los tramos paralelos no se bloquean en cruz
+    private static String productsSql(String range) {
+        return COLUMNS + "SELECT ?, date_trunc(?, o.date) AS bucket, oi.product_id, p.category_id, " + HISTORY_MEASURES +
+                HISTORY_FROM + range + "GROUP BY bucket, oi.product_id, p.category_id ORDER BY bucket, oi.product_id" +
+                ON_CONFLICT_ADD;
+    }
+
+    private static String totalsSql(String range) {
+        return COLUMNS + "SELECT ?, date_trunc(?, o.date) AS bucket, " + SalesRollup.TOTAL_PRODUCT_ID + ", 0, " +
+                HISTORY_MEASURES + HISTORY_FROM + range + "GROUP BY bucket ORDER BY bucket" + ON_CONFLICT_ADD;
+    }
+
+    // Una fila a sumar en sales_rollups
+    record RollupDelta(RollupGranularity granularity, LocalDateTime bucketStart, Long productId, Long categoryId,
+                       BigDecimal revenue, long units, long orderCount, BigDecimal paidRevenue, long paidUnits) {
+
+        Object[] toArgs() {
+            return new Object[]{granularity.name(), bucketStart, productId, categoryId,
+                    revenue, units, orderCount, paidRevenue, paidUnits};
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    @Qualifier("analyticsExecutor")
+    private ThreadPoolTaskExecutor analyticsExecutor;
+
+    @Value("${analytics.rebuild.chunk-size:10000}")
+    private long rebuildChunkSize;
+
+    private final TransactionTemplate newTransaction;
+
+    // Lectura: un upsert incremental (chequeo + escritura). Escritura: arrancar/terminar una reconstrucción,
+    // así ningún upsert queda a mitad de camino cuando se borra la tabla o se deja de encolar
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private boolean rebuilding; // protegido por rebuildLock
+
+    // Días (inicio del balde diario) con cambios durante la reconstrucción, para recalcular al final
+    private final Set<LocalDateTime> pendingDays = new ConcurrentSkipListSet<>();
+
+    public SalesRollupService(PlatformTransactionManager transactionManager) {
+        // Después del commit los recursos de la transacción de la orden siguen atados al hilo: hace falta una nueva
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // 1. INCREMENTAL (después del commit de la orden; un fallo acá no rompe la compra)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesChanged(SalesChangedEvent event) {
+        if (event.isEmpty()) return;
+
+        List<Object[]> rows = toDeltas(event).stream().map(RollupDelta::toArgs).toList();
+        rebuildLock.readLock().lock();
+        try {
+            if (rebuilding) {
+                pendingDays.add(RollupGranularity.DAY.bucketOf(event.orderDate()));
+                return;
+            }
+            newTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, rows));
+        } catch (Exception e) {
+            logger.error("❌ [ANALYTICS] No se pudo acumular la orden #{} (se corrige al reconstruir): {}",
+                    event.orderId(), e.getMessage());
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    // Filas por producto (agrupando líneas repetidas) + fila total, para cada granularidad.
+    // Orden estable (granularidad, balde, producto) para que dos transacciones no se bloqueen en cruz
+    static List<RollupDelta> toDeltas(SalesChangedEvent event) {
+        Map<Long, List<SalesChangedEvent.Line>> byProduct = event.lines().stream()
+                .collect(Collectors.groupingBy(SalesChangedEvent.Line::productId, TreeMap::new, Collectors.toList()));
+
+        List<RollupDelta> deltas = new ArrayList<>();
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            LocalDateTime bucket = granularity.bucketOf(event.orderDate());
+
+            BigDecimal totalRevenue = BigDecimal.ZERO;
+            long totalUnits = 0;
+            List<RollupDelta> productDeltas = new ArrayList<>();
+
+            for (Map.Entry<Long, List<SalesChangedEvent.Line>> entry : byProduct.entrySet()) {
+                BigDecimal revenue = entry.getValue().stream()
+                        .map(SalesChangedEvent.Line::revenue)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                long units = entry.getValue().stream().mapToLong(SalesChangedEvent.Line::units).sum();
+                totalRevenue = totalRevenue.add(revenue);
+                totalUnits += units;
+                productDeltas.add(delta(granularity, bucket, entry.getKey(), entry.getValue().get(0).categoryId(),
+                        revenue, units, event));
+            }
+
+            deltas.add(delta(granularity, bucket, SalesRollup.TOTAL_PRODUCT_ID, 0L, totalRevenue, totalUnits, event));
+            deltas.addAll(productDeltas);
+        }
+        return deltas;
+    }
+
+    private static RollupDelta delta(RollupGranularity granularity, LocalDateTime bucket, Long productId, Long categoryId,
+                                     BigDecimal revenue, long units, SalesChangedEvent event) {
+        int orderSign = event.orderSign();
+        int paidSign = event.paidSign();
+        return new RollupDelta(granularity, bucket, productId, categoryId,
+                revenue.multiply(BigDecimal.valueOf(orderSign)), units * orderSign, orderSign,
+                revenue.multiply(BigDecimal.valueOf(paidSign)), units * paidSign);
+    }
+
+    // 2. RECONSTRUCCIÓN (admin): borra y recalcula desde el historial en tramos de ids en paralelo.
+    // Un tramo puede leer o no una orden que cambió mientras corría: por eso esos días se recalculan al final.
+    // Queda una sola ventana, la de microsegundos entre el commit de una orden y su listener
+    public Map<String, Object> rebuild() {
+        rebuildLock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                throw new RuntimeException("Ya hay una reconstrucción de métricas en curso");
+            }
+            rebuilding = true;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            Long minId = jdbcTemplate.queryForObject("SELECT COALESCE(MIN(id), 0) FROM orders", Long.class);
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM orders", Long.class);
+
+            newTransaction.executeWithoutResult(status -> jdbcTemplate.update("DELETE FROM sales_rollups"));
+
+            List<Future<?>> chunks = new ArrayList<>();
+            for (long from = minId; from <= maxId; from += rebuildChunkSize) {
+                long chunkFrom = from;
+                long chunkTo = from + rebuildChunkSize;
+                chunks.add(analyticsExecutor.submit(() -> rebuildChunk(chunkFrom, chunkTo)));
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+            int days = recomputePendingDays();
+
+            long millis = System.currentTimeMillis() - start;
+            logger.info("📊 [ANALYTICS] Acumulados reconstruidos: {} tramos y {} días recalculados en {} ms",
+                    chunks.size(), days, millis);
+            return Map.of("chunks", chunks.size(), "maxOrderId", maxId, "recomputedDays", days, "millis", millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Reconstrucción interrumpida");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error reconstruyendo métricas: " + e.getCause().getMessage());
+        } finally {
+            // Si falló a mitad de camino se vuelve al modo incremental; lo encolado se corrige en la próxima
+            rebuildLock.writeLock().lock();
+            try {
+                rebuilding = false;
+                pendingDays.clear();
+            } finally {
+                rebuildLock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Recalcula los días que cambiaron durante la reconstrucción hasta que no quede ninguno.
+    // Se vuelve al modo incremental con la cola vacía y con el lock de escritura tomado:
+    // cada cambio o quedó encolado (y se recalculó) o se aplica como upsert después
+    private int recomputePendingDays() {
+        int days = 0;
+        while (true) {
+            List<LocalDateTime> batch;
+            rebuildLock.writeLock().lock();
+            try {
+                if (pendingDays.isEmpty()) {
+                    rebuilding = false;
+                    return days;
+                }
+                batch = new ArrayList<>(pendingDays);
+                pendingDays.removeAll(batch);
+            } finally {
+                rebuildLock.writeLock().unlock();
+            }
+            batch.forEach(this::recomputeDay);
+            days += batch.size();
+        }
+    }
+
+    // Reemplaza los baldes horarios y el diario del día por lo que dice el historial
+    private void recomputeDay(LocalDateTime day) {
+        LocalDateTime nextDay = RollupGranularity.DAY.nextBucket(day);
+        newTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.update(DELETE_DAY_SQL, day, nextDay);
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                jdbcTemplate.update(DAY_TOTALS_SQL, granularity.name(), granularity.getTruncUnit(), day, nextDay);
+                jdbcTemplate.update(DAY_PRODUCTS_SQL, granularity.name(), granularity.getTruncUnit(), day, nextDay);
+            }
+        });
+    }
+
+    private void rebuildChunk(long fromId, long toId) {
+        newTransaction.executeWithoutResult(status -> {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                jdbcTemplate.update(REBUILD_TOTALS_SQL, granularity.name(), granularity.getTruncUnit(), fromId, toId);
+                jdbcTemplate.update(REBUILD_PRODUCTS_SQL, granularity.name(), granularity.getTruncUnit(), fromId, toId);
+            }
+        });
+    }
+
+    // 3. LECTURAS PARA TABLEROS (rango de días inclusivo; por defecto los últimos 30)
+
+    public List<SalesPointDTO> getSalesSeries(RollupGranularity granularity, LocalDate from, LocalDate to) {
+        LocalDate[] range = toRange(from, to, granularity == RollupGranularity.HOUR ? MAX_HOURLY_DAYS : MAX_SERIES_DAYS);
+        return salesRollupRepository.findSeries(granularity, range[0].atStartOfDay(), range[1].plusDays(1).atStartOfDay());
+    }
+
+    public List<SalesRankingDTO> getTopProducts(LocalDate from, LocalDate to, int limit) {
+        LocalDate[] range = toRange(from, to, MAX_SERIES_DAYS);
+        return salesRollupRepository.findTopProducts(range[0].atStartOfDay(), range[1].plusDays(1).atStartOfDay(),
+                PageRequest.of(0, Math.max(1, Math.min(limit, 100))));
+    }
+
+    public List<SalesRankingDTO> getCategorySales(LocalDate from, LocalDate to) {
+        LocalDate[] range = toRange(from, to, MAX_SERIES_DAYS);
+        return salesRollupRepository.findCategorySales(range[0].atStartOfDay(), range[1].plusDays(1).atStartOfDay());
+    }
+
+    private LocalDate[] toRange(LocalDate from, LocalDate to, int maxDays) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end)) {
+            throw new RuntimeException("El rango de fechas es inválido");
+        }
+        if (start.plusDays(maxDays).isBefore(end)) {
+            throw new RuntimeException("El rango máximo es de " + maxDays + " días");
+        }
+        return new LocalDate[]{start, end};
+    }
+}
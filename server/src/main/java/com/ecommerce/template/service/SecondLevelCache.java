@@ -0,0 +1,50 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.model.Category;
+import com.ecommerce.template.model.Product;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Desalojo masivo de la caché L2 para escrituras por JDBC o JPQL bulk sobre products (no pasan por Hibernate).
+// Se descartan las entidades, la colección Category.products y las consultas cacheadas (conteos por categoría)
+@Component
+public class SecondLevelCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecondLevelCache.class);
+
+    private static final String CATEGORY_PRODUCTS_ROLE = Category.class.getName() + ".products";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SecondLevelCache(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    // Dentro de una transacción se repite al commitear, igual que el desalojo por id de StockService
+    public void evictAllProducts() {
+        evict();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict();
+                }
+            });
+        }
+    }
+
+    private void evict() {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(Product.class);
+        cache.evictCollectionData(CATEGORY_PRODUCTS_ROLE);
+        cache.evictQueryRegions();
+        logger.info("♻️ [CACHE L2] Productos y consultas desalojados");
+    }
+}
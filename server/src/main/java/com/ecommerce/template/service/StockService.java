@@ -0,0 +1,101 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.model.Product;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Reserva y liberación de stock con UPDATE condicionales (sin leer-restar-guardar en Java)
+// Todas las líneas de una orden viajan en UN batch JDBC: un carrito de 50 productos es un solo round trip
+@Service
+public class StockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockService.class);
+
+    // Si no alcanza el stock no actualiza nada y devuelve 0 filas
+    // (el chequeo y la resta ocurren en la MISMA sentencia, no hay ventana para vender de más)
+    private static final String DECREMENT_SQL =
+            "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?";
+    private static final String INCREMENT_SQL =
+            "UPDATE products SET stock = stock + ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Descuenta todas las cantidades o ninguna (si un producto no alcanza, la transacción entera hace rollback)
+    // Se recorre por id ascendente: dos checkouts con los mismos productos bloquean las filas
+    // en el mismo orden, así que no pueden quedar trabados entre sí (deadlock)
+    @Transactional
+    public void reserve(Map<Long, Integer> quantitiesByProductId) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantitiesByProductId).entrySet());
+        List<Object[]> args = lines.stream()
+                .map(line -> new Object[] { line.getValue(), line.getKey(), line.getValue() })
+                .toList();
+
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_SQL, args);
+
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                Map.Entry<Long, Integer> line = lines.get(i);
+                logger.warn("🚫 [STOCK] Reserva rechazada: producto ID {} sin stock para {} unidades",
+                        line.getKey(), line.getValue());
+                meterRegistry.counter("stock.rejections", "stage", "checkout").increment();
+                throw new RuntimeException("Stock insuficiente para el producto con ID " + line.getKey());
+            }
+        }
+        evictFromSecondLevelCache(quantitiesByProductId.keySet());
+    }
+
+    // Devuelve el stock (ej: orden CANCELADA). Mismo orden de bloqueo que reserve()
+    @Transactional
+    public void release(Map<Long, Integer> quantitiesByProductId) {
+        List<Object[]> args = new TreeMap<>(quantitiesByProductId).entrySet().stream()
+                .map(line -> new Object[] { line.getValue(), line.getKey() })
+                .toList();
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, args);
+        evictFromSecondLevelCache(quantitiesByProductId.keySet());
+        logger.info("↩️ [STOCK] Stock liberado para {} productos", quantitiesByProductId.size());
+    }
+
+    // Los UPDATE por JDBC no pasan por Hibernate: hay que sacar a mano los productos de la caché L2.
+    // Se desalojan ya (nadie lee el stock viejo desde la caché durante la transacción) y otra vez al commitear
+    // (por si otra transacción volvió a cachear el valor anterior mientras tanto)
+    private void evictFromSecondLevelCache(Collection<Long> productIds) {
+        List<Long> ids = List.copyOf(productIds);
+        evict(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(ids);
+                }
+            });
+        }
+    }
+
+    private void evict(List<Long> productIds) {
+        Cache cache = entityManagerFactory.getCache();
+        productIds.forEach(id -> cache.evict(Product.class, id));
+    }
+}
@@ -0,0 +1,9 @@
+package com.ecommerce.template.service;
+
+// El servicio externo ya tiene todas sus llamadas simultáneas ocupadas (se responde 503)
+public class UpstreamBusyException extends RuntimeException {
+
+    public UpstreamBusyException(UpstreamLimiter.Upstream upstream) {
+        super("El servicio " + upstream + " está saturado, intentá de nuevo en unos segundos.");
+    }
+}
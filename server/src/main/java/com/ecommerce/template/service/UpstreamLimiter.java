@@ -0,0 +1,59 @@
+package com.ecommerce.template.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Bulkhead por servicio externo: cada upstream tiene su cupo de llamadas simultáneas.
+// Si MercadoPago o Cloudinary se ponen lentos, solo se traban sus propias peticiones
+// (y las conexiones JDBC que retengan), no el resto de la tienda.
+@Component
+public class UpstreamLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamLimiter.class);
+
+    public enum Upstream { MERCADOPAGO, CLOUDINARY }
+
+    private final Map<Upstream, Semaphore> permits = new EnumMap<>(Upstream.class);
+    private final long acquireTimeoutMs;
+
+    public UpstreamLimiter(
+            @Value("${upstream.mercadopago.max-concurrent:4}") int mercadoPagoMaxConcurrent,
+            @Value("${upstream.cloudinary.max-concurrent:4}") int cloudinaryMaxConcurrent,
+            @Value("${upstream.acquire-timeout-ms:2000}") long acquireTimeoutMs) {
+        permits.put(Upstream.MERCADOPAGO, new Semaphore(mercadoPagoMaxConcurrent, true));
+        permits.put(Upstream.CLOUDINARY, new Semaphore(cloudinaryMaxConcurrent, true));
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    // Ejecuta la llamada si hay cupo; si no se libera uno a tiempo, falla rápido con UpstreamBusyException
+    public <T> T call(Upstream upstream, Callable<T> action) throws Exception {
+        Semaphore semaphore = permits.get(upstream);
+        try {
+            if (!semaphore.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                logger.warn("⚠️ [UPSTREAM] {} saturado, se rechaza la llamada", upstream);
+                throw new UpstreamBusyException(upstream);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpstreamBusyException(upstream);
+        }
+
+        try {
+            return action.call();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    public int availablePermits(Upstream upstream) {
+        return permits.get(upstream).availablePermits();
+    }
+}
@@ -0,0 +1,210 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.model.WebhookEvent;
+import com.ecommerce.template.model.WebhookStatus;
+import com.ecommerce.template.repository.WebhookEventRepository;
+import com.mercadopago.resources.payment.Payment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Pipeline de webhooks de MercadoPago:
+// 1) enqueue(): guarda la notificación y el controller responde 200 enseguida (sin llamar a MP)
+// 2) dispatchDue(): cada segundo reparte los eventos pendientes en un pool acotado de workers
+// 3) process(): consulta el pago en MP, aprueba la orden y reintenta con backoff si algo falla
+// Cada paso cuenta su resultado en webhooks.received / webhooks.processed (etiqueta outcome)
+@Service
+public class WebhookService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookService.class);
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("webhookExecutor")
+    private ThreadPoolTaskExecutor webhookExecutor;
+
+    @Value("${webhook.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${webhook.backoff.initial-seconds:5}")
+    private long initialBackoffSeconds;
+
+    @Value("${webhook.backoff.max-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    // 1. RECIBIR (hilo de Tomcat: solo una lectura y una escritura)
+    public void enqueue(Map<String, String> params) {
+        // MP suele mandar: ?type=payment&data.id=... O ?topic=payment&id=...
+        String type = params.get("type");
+        String topic = params.get("topic");
+        String idStr = params.get("data.id") != null ? params.get("data.id") : params.get("id");
+
+        if (!("payment".equals(type) || "payment".equals(topic)) || idStr == null) {
+            logger.info("🔔 [WEBHOOK] Notificación ignorada (no es un pago): {}", params);
+            count("webhooks.received", "ignored");
+            return;
+        }
+
+        Long paymentId;
+        try {
+            paymentId = Long.parseLong(idStr);
+        } catch (NumberFormatException e) {
+            logger.warn("⚠️ [WEBHOOK] ID de pago inválido: '{}'", idStr);
+            count("webhooks.received", "invalid");
+            return;
+        }
+
+        WebhookEvent existing = webhookEventRepository.findByPaymentId(paymentId).orElse(null);
+        if (existing == null) {
+            try {
+                webhookEventRepository.save(new WebhookEvent(paymentId));
+                logger.info("🔔 [WEBHOOK] Pago {} encolado", paymentId);
+                count("webhooks.received", "queued");
+            } catch (DataIntegrityViolationException e) {
+                // Otra notificación del mismo pago llegó en paralelo y ganó el INSERT
+                logger.info("🔁 [WEBHOOK] Pago {} ya encolado (duplicado simultáneo)", paymentId);
+                count("webhooks.received", "duplicate");
+            }
+            return;
+        }
+
+        if (existing.getStatus() == WebhookStatus.PROCESANDO) {
+            // Un worker lo está procesando y puede haber leído el estado anterior del pago:
+            // se marca para repetirlo apenas termine ese intento
+            if (webhookEventRepository.markRedeliver(existing.getId()) == 1) {
+                logger.info("🔁 [WEBHOOK] Pago {} en proceso, se repite al terminar", paymentId);
+                count("webhooks.received", "redeliver");
+                return;
+            }
+            // El intento terminó entre la lectura y la marca: se decide con el estado final
+            existing = webhookEventRepository.findByPaymentId(paymentId).orElseThrow();
+        }
+
+        if (isDuplicate(existing)) {
+            logger.info("🔁 [WEBHOOK] Pago {} duplicado ({}), se descarta", paymentId, existing.getStatus());
+            count("webhooks.received", "duplicate");
+            return;
+        }
+
+        // Ya lo habíamos procesado pero el pago no estaba aprobado (o se agotaron los intentos):
+        // MP avisa de nuevo porque cambió el estado, así que lo volvemos a encolar
+        existing.setStatus(WebhookStatus.PENDIENTE);
+        existing.setAttempts(0);
+        existing.setNextAttemptAt(LocalDateTime.now());
+        existing.setUpdatedAt(LocalDateTime.now());
+        webhookEventRepository.save(existing);
+        logger.info("🔔 [WEBHOOK] Pago {} re-encolado (último estado MP: {})", paymentId, existing.getPaymentStatus());
+        count("webhooks.received", "requeued");
+    }
+
+    private boolean isDuplicate(WebhookEvent event) {
+        return event.getStatus() == WebhookStatus.PENDIENTE
+                || (event.getStatus() == WebhookStatus.PROCESADO && "approved".equals(event.getPaymentStatus()));
+    }
+
+    // 2. REPARTIR (no toma más eventos de los que el pool puede aceptar)
+    @Scheduled(fixedDelayString = "${webhook.poll-interval-ms:1000}", initialDelayString = "${webhook.poll-interval-ms:1000}")
+    public void dispatchDue() {
+        LocalDateTime now = LocalDateTime.now();
+        webhookEventRepository.requeueStale(now.minusMinutes(5));
+
+        int capacity = webhookExecutor.getThreadPoolExecutor().getQueue().remainingCapacity();
+        if (capacity == 0) return;
+
+        List<Long> dueIds = webhookEventRepository.findDueIds(WebhookStatus.PENDIENTE, now, PageRequest.of(0, capacity));
+        for (Long id : dueIds) {
+            if (webhookEventRepository.claim(id, now) == 1) {
+                webhookExecutor.execute(() -> process(id));
+            }
+        }
+    }
+
+    // 3. PROCESAR (hilo del pool de webhooks)
+    public void process(Long eventId) {
+        WebhookEvent event = webhookEventRepository.findById(eventId).orElse(null);
+        if (event == null) return;
+
+        try {
+            // Consultamos a MP (Fuente de verdad)
+            Payment payment = paymentService.getPaymentById(event.getPaymentId());
+            event.setPaymentStatus(payment.getStatus());
+
+            if ("approved".equals(payment.getStatus())) {
+                // El externalReference es nuestro Order ID
+                Long orderId = Long.parseLong(payment.getExternalReference());
+                event.setOrderId(orderId);
+                orderService.approveOrderPayment(orderId); // Idempotente: solo pasa PENDIENTE -> PAGADO
+                logger.info("✅ [WEBHOOK] Orden #{} pagada (pago {})", orderId, event.getPaymentId());
+            }
+
+            event.setStatus(WebhookStatus.PROCESADO);
+            event.setLastError(null);
+            count("webhooks.processed", "approved".equals(payment.getStatus()) ? "approved" : "not_approved");
+        } catch (Exception e) {
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            event.setLastError(truncate(e.getMessage()));
+
+            if (attempts >= maxAttempts) {
+                event.setStatus(WebhookStatus.FALLIDO);
+                count("webhooks.processed", "failed");
+                logger.error("❌ [WEBHOOK] Pago {} falló {} veces, se abandona: {}", event.getPaymentId(), attempts, e.getMessage());
+            } else {
+                Duration backoff = backoff(attempts);
+                event.setStatus(WebhookStatus.PENDIENTE);
+                event.setNextAttemptAt(LocalDateTime.now().plus(backoff));
+                count("webhooks.processed", "retry");
+                logger.warn("⚠️ [WEBHOOK] Pago {} falló (intento {}), reintento en {}s: {}",
+                        event.getPaymentId(), attempts, backoff.toSeconds(), e.getMessage());
+            }
+        }
+
+        event.setUpdatedAt(LocalDateTime.now());
+        webhookEventRepository.save(event);
+
+        if (webhookEventRepository.requeueIfRedelivered(eventId, LocalDateTime.now()) == 1) {
+            logger.info("🔔 [WEBHOOK] Pago {} re-encolado: MP avisó de nuevo durante el intento", event.getPaymentId());
+        }
+    }
+
+    // outcome sale siempre de un conjunto fijo (nunca el id del pago ni el estado crudo de MP)
+    private void count(String name, String outcome) {
+        meterRegistry.counter(name, "outcome", outcome).increment();
+    }
+
+    // Backoff exponencial: 5s, 10s, 20s, 40s... con tope
+    Duration backoff(int attempts) {
+        long seconds = initialBackoffSeconds << Math.min(attempts - 1, 20);
+        return Duration.ofSeconds(Math.min(seconds, maxBackoffSeconds));
+    }
+
+    private String truncate(String message) {
+        if (message == null) return null;
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
@@ -0,0 +1,488 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.CartDTO;
+import com.ecommerce.template.dto.CartItemDTO;
+import com.ecommerce.template.dto.CartOperationDTO;
+import com.ecommerce.template.model.Cart;
+import com.ecommerce.template.model.CartItem;
+import com.ecommerce.template.model.Product;
+import com.ecommerce.template.model.User;
+import com.ecommerce.template.repository.CartRepository;
+import com.ecommerce.template.repository.ProductRepository;
+import com.ecommerce.template.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Store write-behind (cart.store=write-behind): los carritos viven en memoria y se vuelcan a carts/cart_items
+// en lotes cada cart.write-behind.flush-interval-ms. Un clic en "agregar" ya no es una escritura en Postgres.
+//
+// Recuperación ante caídas:
+// - Al primer acceso de cada usuario el carrito se carga desde la base, así que después de reiniciar se parte
+//   del último volcado. Los cambios de los últimos flush-interval-ms antes de una caída se pierden.
+// - Al apagar ordenadamente (@PreDestroy) se vuelca todo lo pendiente.
+// - Antes de armar una orden, OrderController fuerza el volcado del carrito (checkout), fuera de la transacción
+//   de la orden: así el checkout no retiene una conexión del pool mientras espera su escritura.
+//   El carrito queda tomado hasta que termina la orden y al commitear se descarta: ningún volcado periódico
+//   puede volver a escribir las líneas compradas.
+// - El estado es local a la instancia: con más de una réplica hace falta sesión pegajosa por usuario.
+@Service
+@ConditionalOnProperty(name = "cart.store", havingValue = "write-behind")
+public class WriteBehindCartStore implements CartStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindCartStore.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    static final String DELETE_ITEMS_SQL = "DELETE FROM cart_items WHERE cart_id = ?";
+    static final String INSERT_ITEM_SQL = "INSERT INTO cart_items (cart_id, product_id, quantity) VALUES (?, ?, ?)";
+
+    // Estado en memoria de un carrito. Se lee y se modifica solo con el lock de su franja tomado
+    private static final class CartState {
+        final Long cartId;
+        final Long userId;
+        // Un volcado a la vez por carrito: así una foto vieja nunca pisa en la base a una más nueva.
+        // Se toma antes de sacar la foto y se suelta después de marcarla como volcada
+        final ReentrantLock writing = new ReentrantLock();
+        LinkedHashMap<Long, Integer> quantities;
+        long version;
+        long flushedVersion;
+        long lastAccess;
+        // Olvidado (checkout, volcado fallido): ya no se escribe aunque alguien tenga una foto o una referencia
+        volatile boolean discarded;
+
+        CartState(Long cartId, Long userId, LinkedHashMap<Long, Integer> quantities) {
+            this.cartId = cartId;
+            this.userId = userId;
+            this.quantities = quantities;
+            this.lastAccess = System.currentTimeMillis();
+        }
+
+        boolean isDirty() {
+            return version != flushedVersion;
+        }
+    }
+
+    // Foto de un carrito sucio tomada para volcarla sin tener el lock durante el I/O
+    private record Snapshot(CartState state, long version, Map<Long, Integer> quantities) {}
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cart.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cart.write-behind.idle-evict-ms:1800000}")
+    private long idleEvictMs;
+
+    private final Map<Long, CartState> states = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    private final TransactionTemplate newTransaction;
+
+    public WriteBehindCartStore(PlatformTransactionManager transactionManager) {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        // Carga y volcado commitean por su cuenta, aunque quien llama tenga una transacción abierta
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    private ReentrantLock lockFor(Long userId) {
+        return locks[Math.floorMod(userId.hashCode(), LOCK_STRIPES)];
+    }
+
+    // Estado del usuario; si no está en memoria se carga (o se crea) desde la base. Requiere el lock de la franja
+    private CartState state(User user) {
+        CartState state = states.get(user.getId());
+        if (state == null) {
+            state = newTransaction.execute(tx -> load(user));
+            states.put(user.getId(), state);
+        }
+        state.lastAccess = System.currentTimeMillis();
+        return state;
+    }
+
+    private CartState load(User user) {
+        Cart cart = cartRepository.findWithItemsByUserId(user.getId())
+                .orElseGet(() -> {
+                    logger.info("🛒 [CARRITO] Primer acceso. Creando carrito nuevo para usuario: '{}'",
+                            user.getUsername());
+                    return cartRepository.save(new Cart(userRepository.getReferenceById(user.getId())));
+                });
+        LinkedHashMap<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartItem item : cart.getItems()) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        return new CartState(cart.getId(), user.getId(), quantities);
+    }
+
+    // Aplica la mutación sobre una copia; solo si valida (productos y stock) reemplaza el estado.
+    // Una sola consulta de productos por operación, que también alimenta el DTO de respuesta
+    private CartDTO mutate(User user, List<Long> touched, Function<LinkedHashMap<Long, Integer>, String> change) {
+        ReentrantLock lock = lockFor(user.getId());
+        lock.lock();
+        try {
+            CartState state = state(user);
+            LinkedHashMap<Long, Integer> next = new LinkedHashMap<>(state.quantities);
+            String description = change.apply(next);
+
+            List<Long> ids = new ArrayList<>(next.keySet());
+            touched.stream().filter(id -> !next.containsKey(id)).forEach(ids::add);
+            Map<Long, Product> products = findProducts(ids);
+
+            for (Long productId : touched) {
+                Product product = products.get(productId);
+                if (product == null) {
+                    throw new RuntimeException("Producto no encontrado: " + productId);
+                }
+                Integer quantity = next.get(productId);
+                if (quantity != null && quantity > product.getStock()) {
+                    logger.warn("🚫 [STOCK] Intento fallido. '{}' pedido x{}, Stock real: {}",
+                            product.getName(), quantity, product.getStock());
+                    meterRegistry.counter("stock.rejections", "stage", "cart").increment();
+                    throw new RuntimeException("Stock insuficiente para '" + product.getName()
+                            + "'. Disponibles: " + product.getStock());
+                }
+            }
+
+            state.quantities = next;
+            state.version++;
+            logger.info("🛒 [CARRITO] Usuario '{}': {} (pendiente de volcar)", user.getUsername(), description);
+            return toDTO(state, products);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<Long, Product> findProducts(List<Long> ids) {
+        if (ids.isEmpty()) return Map.of();
+        return productRepository.loadAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+
+    // OBTENER CARRITO
+    @Override
+    public CartDTO getCart(User user) {
+        ReentrantLock lock = lockFor(user.getId());
+        lock.lock();
+        try {
+            CartState state = state(user);
+            return toDTO(state, findProducts(new ArrayList<>(state.quantities.keySet())));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // AGREGAR ITEM
+    @Override
+    public CartDTO addItem(User user, Long productId, Integer quantity) {
+        return mutate(user, List.of(productId), items -> {
+            items.merge(productId, quantity, Integer::sum);
+            return "agregó producto " + productId + " (x" + quantity + ")";
+        });
+    }
+
+    // REMOVER UNA UNIDAD
+    @Override
+    public CartDTO removeOne(User user, Long productId) {
+        return mutate(user, List.of(), items -> {
+            Integer current = items.get(productId);
+            if (current == null) {
+                throw new RuntimeException("El producto no está en el carrito");
+            }
+            if (current > 1) {
+                items.put(productId, current - 1);
+            } else {
+                items.remove(productId);
+            }
+            return "restó 1 unidad del producto " + productId;
+        });
+    }
+
+    // REMOVER ITEM COMPLETO
+    @Override
+    public CartDTO removeItem(User user, Long productId) {
+        return mutate(user, List.of(), items -> {
+            items.remove(productId);
+            return "eliminó el producto " + productId;
+        });
+    }
+
+    // LIMPIAR CARRITO
+    @Override
+    public CartDTO clearCart(User user) {
+        return mutate(user, List.of(), items -> {
+            items.clear();
+            return "vació el carrito";
+        });
+    }
+
+    // OPERACIONES EN LOTE: todas o ninguna, con el stock validado sobre las cantidades finales
+    @Override
+    public CartDTO applyOperations(User user, List<CartOperationDTO> operations) {
+        CartOperations.validate(operations);
+        List<Long> touched = operations.stream().map(CartOperationDTO::getProductId).distinct().toList();
+        return mutate(user, touched, items -> {
+            for (CartOperationDTO operation : operations) {
+                int target = CartOperations.targetQuantity(operation, items.getOrDefault(operation.getProductId(), 0));
+                if (target <= 0) {
+                    items.remove(operation.getProductId());
+                } else {
+                    items.put(operation.getProductId(), target);
+                }
+            }
+            return "aplicó " + operations.size() + " operaciones";
+        });
+    }
+
+    // Productos borrados del catálogo se descartan del carrito en lugar de romper la respuesta
+    private CartDTO toDTO(CartState state, Map<Long, Product> products) {
+        List<CartItemDTO> items = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : state.quantities.entrySet()) {
+            Product product = products.get(entry.getKey());
+            if (product == null) continue;
+            items.add(new CartItemDTO(
+                    null, // la fila todavía puede no existir en cart_items
+                    product.getId(),
+                    product.getName(),
+                    product.getPrice().doubleValue(),
+                    product.getStock(),
+                    entry.getValue(),
+                    product.getImageUrl()));
+        }
+        if (items.size() != state.quantities.size()) {
+            state.quantities.keySet().retainAll(products.keySet());
+            state.version++;
+        }
+        return new CartDTO(state.cartId, state.userId, items);
+    }
+
+    // VOLCADO SINCRÓNICO (checkout): al volver, carts/cart_items reflejan lo que el usuario ve.
+    // Solo espera si su propio carrito está en el lote que se está escribiendo, nunca al volcado completo
+    @Override
+    public void flush(Long userId) {
+        CartState state = states.get(userId);
+        if (state == null) return;
+        state.writing.lock();
+        try {
+            Snapshot snapshot = snapshot(state);
+            if (snapshot != null) {
+                write(List.of(snapshot));
+                markFlushed(snapshot);
+            }
+        } finally {
+            state.writing.unlock();
+        }
+    }
+
+    // Vuelca el carrito y arma la orden con el carrito tomado: mientras tanto el volcado periódico lo saltea,
+    // así una foto con las líneas que se están comprando no puede llegar a la base antes ni después de la orden
+    @Override
+    public <T> T checkout(Long userId, Supplier<T> placeOrder) {
+        CartState state = states.get(userId);
+        if (state == null) return placeOrder.get();
+        state.writing.lock();
+        try {
+            Snapshot snapshot = snapshot(state);
+            if (snapshot != null) {
+                write(List.of(snapshot));
+                markFlushed(snapshot);
+            }
+            return placeOrder.get();
+        } finally {
+            state.writing.unlock();
+        }
+    }
+
+    // Después del checkout el carrito quedó vacío en la base: se olvida la copia en memoria al commitear
+    @Override
+    public void evict(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(userId);
+                }
+            });
+        } else {
+            remove(userId);
+        }
+    }
+
+    private void remove(Long userId) {
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            CartState state = states.remove(userId);
+            if (state != null) state.discarded = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // VOLCADO PERIÓDICO: todos los carritos sucios en lotes de batch-size, y después se liberan los inactivos
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval-ms:2000}")
+    public void flushDirty() {
+        // Orden estable por carrito para que dos volcados nunca se bloqueen en cruz
+        List<CartState> candidates = new ArrayList<>(states.values());
+        candidates.sort(Comparator.comparing(state -> state.cartId));
+
+        int flushed = 0;
+        List<Snapshot> batch = new ArrayList<>(batchSize);
+        for (CartState state : candidates) {
+            // Si otro volcado (ej: un checkout) está escribiendo este carrito se saltea: lo deja al día él
+            // o lo toma el próximo ciclo
+            if (!state.writing.tryLock()) continue;
+            Snapshot snapshot = snapshot(state);
+            if (snapshot == null) {
+                state.writing.unlock();
+                continue;
+            }
+            batch.add(snapshot);
+            if (batch.size() == batchSize) {
+                flushed += flushAndRelease(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            flushed += flushAndRelease(batch);
+        }
+        if (flushed > 0) {
+            logger.info("💾 [CARRITO] Volcados {} carritos a la base", flushed);
+        }
+        evictIdle();
+    }
+
+    // Los carritos del lote quedan tomados solo mientras se escribe ese lote
+    private int flushAndRelease(List<Snapshot> batch) {
+        try {
+            flushBatch(batch);
+            return batch.size();
+        } finally {
+            batch.forEach(snapshot -> snapshot.state().writing.unlock());
+        }
+    }
+
+    private void flushBatch(List<Snapshot> batch) {
+        try {
+            write(batch);
+            batch.forEach(this::markFlushed);
+        } catch (Exception e) {
+            // Un carrito roto (ej: producto borrado entre medio) no debe frenar al resto del lote
+            logger.warn("⚠️ [CARRITO] Falló el volcado de un lote de {} carritos, reintentando de a uno: {}",
+                    batch.size(), e.getMessage());
+            for (Snapshot snapshot : batch) {
+                try {
+                    write(List.of(snapshot));
+                    markFlushed(snapshot);
+                } catch (Exception single) {
+                    // Se descarta la copia en memoria: el próximo acceso recarga el último estado bueno de la base
+                    logger.error("❌ [CARRITO] No se pudo volcar el carrito #{}, se descartan sus cambios: {}",
+                            snapshot.state().cartId, single.getMessage());
+                    remove(snapshot.state().userId);
+                }
+            }
+        }
+    }
+
+    private void write(List<Snapshot> snapshots) {
+        snapshots = snapshots.stream().filter(snapshot -> !snapshot.state().discarded).toList();
+        if (snapshots.isEmpty()) return;
+        List<Object[]> deletes = new ArrayList<>(snapshots.size());
+        List<Object[]> inserts = new ArrayList<>();
+        for (Snapshot snapshot : snapshots) {
+            Long cartId = snapshot.state().cartId;
+            deletes.add(new Object[]{cartId});
+            snapshot.quantities().forEach((productId, quantity) ->
+                    inserts.add(new Object[]{cartId, productId, quantity}));
+        }
+        newTransaction.executeWithoutResult(tx -> {
+            jdbcTemplate.batchUpdate(DELETE_ITEMS_SQL, deletes);
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, inserts);
+            }
+        });
+    }
+
+    private Snapshot snapshot(CartState state) {
+        ReentrantLock lock = lockFor(state.userId);
+        lock.lock();
+        try {
+            if (state.discarded || !state.isDirty()) return null;
+            return new Snapshot(state, state.version, new LinkedHashMap<>(state.quantities));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Solo queda limpio si nadie lo tocó mientras se escribía; si no, el próximo ciclo vuelca la versión nueva
+    private void markFlushed(Snapshot snapshot) {
+        ReentrantLock lock = lockFor(snapshot.state().userId);
+        lock.lock();
+        try {
+            snapshot.state().flushedVersion = Math.max(snapshot.state().flushedVersion, snapshot.version());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictIdle() {
+        long limit = System.currentTimeMillis() - idleEvictMs;
+        for (CartState state : states.values()) {
+            ReentrantLock lock = lockFor(state.userId);
+            lock.lock();
+            try {
+                if (!state.isDirty() && state.lastAccess < limit && states.remove(state.userId, state)) {
+                    state.discarded = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Apagado ordenado: nada pendiente se queda solo en memoria
+    @PreDestroy
+    public void flushOnShutdown() {
+        logger.info("💾 [CARRITO] Apagando: volcando carritos pendientes");
+        flushDirty();
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecommerce.template.controller;
+
+import com.ecommerce.template.service.CatalogChangedEvent;
+import com.ecommerce.template.service.CatalogSnapshots;
+import com.ecommerce.template.service.CatalogVersion;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CatalogHttpCacheTest {
+
+    private final CatalogVersion catalogVersion = new CatalogVersion();
+    private final CatalogHttpCache catalogHttpCache = new CatalogHttpCache(catalogVersion, 60);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void matchingEtagAnswers304WithoutLoadingTheCatalog() {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        ResponseEntity<List<String>> full = get(null, first);
+
+        String etag = first.getHeader("ETag");
+        assertEquals(HttpStatus.OK, full.getStatusCode());
+        assertEquals("W/" + catalogVersion.etag(), etag);
+        assertEquals("max-age=60, must-revalidate, public", full.getHeaders().getCacheControl());
+        assertEquals(1, loads.get());
+
+        ResponseEntity<List<String>> revalidated = get(etag, new MockHttpServletResponse());
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+        assertNull(revalidated.getBody());
+        assertEquals(1, loads.get(), "un 304 no llama al servicio");
+    }
+
+    @Test
+    void catalogChangeInvalidatesPreviousEtag() {
+        String etag = catalogVersion.etag();
+        catalogVersion.onCatalogChanged(CatalogChangedEvent.forCategories());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertEquals(HttpStatus.OK, get(etag, response).getStatusCode());
+        assertEquals("W/" + catalogVersion.etag(), response.getHeader("ETag"));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void snapshotIsServedGzippedOnlyToClientsThatAcceptIt() {
+        CatalogSnapshots.View view = new CatalogSnapshots.View(catalogVersion.current(), new byte[]{1, 2, 3}, new byte[]{9});
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.addHeader("Accept-Encoding", "br, gzip;q=0.8");
+        ResponseEntity<byte[]> gzip = catalogHttpCache.respond(
+                new ServletWebRequest(request, new MockHttpServletResponse()), view);
+        assertEquals("gzip", gzip.getHeaders().getFirst("Content-Encoding"));
+        assertArrayEquals(new byte[]{9}, gzip.getBody());
+
+        MockHttpServletRequest identity = new MockHttpServletRequest("GET", "/api/products");
+        identity.addHeader("Accept-Encoding", "gzip;q=0");
+        ResponseEntity<byte[]> plain = catalogHttpCache.respond(
+                new ServletWebRequest(identity, new MockHttpServletResponse()), view);
+        assertNull(plain.getHeaders().getFirst("Content-Encoding"));
+        assertArrayEquals(new byte[]{1, 2, 3}, plain.getBody());
+    }
+
+    private ResponseEntity<List<String>> get(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        if (ifNoneMatch != null) request.addHeader("If-None-Match", ifNoneMatch);
+        return catalogHttpCache.respond(new ServletWebRequest(request, response), () -> {
+            loads.incrementAndGet();
+            return List.of("producto");
+        });
+    }
+}
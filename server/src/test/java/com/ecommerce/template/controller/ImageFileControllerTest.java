@@ -0,0 +1,113 @@
+package com.ecommerce.template.controller;
+
+import com.ecommerce.template.service.HotImageCache;
+import com.ecommerce.template.service.LocalImageStorage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ImageFileControllerTest {
+
+    private static final String HASH = "ab".repeat(32);
+    private static final byte[] ORIGINAL = "original-png".getBytes();
+    private static final byte[] THUMB = "thumb-jpeg-bytes".getBytes();
+
+    @TempDir
+    Path root;
+
+    private LocalImageStorage storage;
+    private HotImageCache hotImageCache;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storage = new LocalImageStorage(root.toString(), "/api/images/files");
+        Path staged = storage.createStagingFile();
+        Files.write(staged, ORIGINAL);
+        storage.store(HASH, staged, "png");
+
+        // Hot set de 8 bytes por archivo y sendfile desde 10: cada camino con archivos de prueba chicos
+        hotImageCache = new HotImageCache(1024, 8);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ImageFileController(storage, hotImageCache, 10)).build();
+    }
+
+    @Test
+    void missingVariantFallsBackToTheOriginalWithoutLongCaching() throws Exception {
+        mockMvc.perform(get("/api/images/files/{hash}/thumb", HASH))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/png"))
+                .andExpect(header().string("Cache-Control", "max-age=60, public"))
+                .andExpect(content().bytes(ORIGINAL));
+
+        mockMvc.perform(get("/api/images/files/{hash}/huge", HASH)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/images/files/{hash}/thumb", "cd".repeat(32))).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/images/files/{hash}/thumb", "../../etc")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void hashedVariantIsImmutableRevalidatesAndSupportsRanges() throws Exception {
+        Files.write(root.resolve("ab").resolve(HASH).resolve("thumb.jpg"), THUMB);
+
+        MvcResult full = mockMvc.perform(get("/api/images/files/{hash}/thumb", HASH))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/jpeg"))
+                .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"))
+                .andExpect(content().bytes(THUMB))
+                .andReturn();
+        String etag = full.getResponse().getHeader("ETag");
+        assertEquals("\"" + HASH + "-thumb.jpg\"", etag);
+
+        mockMvc.perform(get("/api/images/files/{hash}/thumb", HASH).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        mockMvc.perform(get("/api/images/files/{hash}/thumb", HASH).header("Range", "bytes=0-4"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 0-4/" + THUMB.length))
+                .andExpect(content().bytes("thumb".getBytes()));
+    }
+
+    @Test
+    void largeFilesAreHandedToTomcatSendfile() throws Exception {
+        Path thumb = root.resolve("ab").resolve(HASH).resolve("thumb.jpg");
+        Files.write(thumb, THUMB);
+
+        MvcResult result = mockMvc.perform(get("/api/images/files/{hash}/thumb", HASH)
+                        .requestAttr(ImageFileController.SENDFILE_SUPPORT, Boolean.TRUE))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue("Content-Length", THUMB.length))
+                .andExpect(content().bytes(new byte[0]))
+                .andReturn();
+
+        assertEquals(thumb.toString(), result.getRequest().getAttribute(ImageFileController.SENDFILE_FILENAME));
+        assertEquals((long) THUMB.length, result.getRequest().getAttribute(ImageFileController.SENDFILE_END));
+    }
+
+    @Test
+    void smallVariantsAreServedFromMemoryAfterTheFirstRead() throws Exception {
+        Path card = root.resolve("ab").resolve(HASH).resolve("card.jpg");
+        Files.write(card, "card".getBytes());
+
+        mockMvc.perform(get("/api/images/files/{hash}/card", HASH)).andExpect(content().bytes("card".getBytes()));
+        Files.delete(card); // un archivo con hash nunca cambia: el segundo pedido ni toca el disco
+        mockMvc.perform(get("/api/images/files/{hash}/card", HASH))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + HASH + "-card.jpg\""))
+                .andExpect(content().bytes("card".getBytes()));
+
+        assertEquals(1L, hotImageCache.stats().get("hits"));
+    }
+}
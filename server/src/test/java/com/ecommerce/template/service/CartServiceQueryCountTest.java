@@ -0,0 +1,159 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.CartDTO;
+import com.ecommerce.template.dto.CartDeltaDTO;
+import com.ecommerce.template.dto.CartOperationDTO;
+import com.ecommerce.template.dto.CartOperationDTO.Type;
+import com.ecommerce.template.model.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({CartService.class, JpaCartStore.class, SimpleMeterRegistry.class})
+class CartServiceQueryCountTest {
+
+    private static final int CART_LINES = 20;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Category category = entityManager.persist(new Category("Perifericos"));
+        products = new ArrayList<>();
+        for (int p = 0; p <= CART_LINES; p++) {
+            products.add(entityManager.persist(new Product("Producto " + p, new BigDecimal("10.00"), 50, category, null, null, true)));
+        }
+
+        User user = new User("comprador", "secret");
+        user.setRole("USER");
+        entityManager.persist(user);
+
+        Cart cart = new Cart(user);
+        for (int p = 0; p < CART_LINES; p++) {
+            cart.getItems().add(new CartItem(products.get(p), 2, cart));
+        }
+        entityManager.persist(cart);
+        entityManager.flush();
+        entityManager.clear();
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readingTheCartIsOneStatementRegardlessOfSize() {
+        CartDTO cart = cartService.getCart();
+
+        assertEquals(CART_LINES, cart.getItems().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void incrementingAnExistingLineIsOneSelectPlusOneUpdate() {
+        cartService.addItem(products.get(5).getId(), 1);
+        entityManager.flush();
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityUpdateCount());
+    }
+
+    @Test
+    void removingTheLastUnitDeletesTheLineWithoutExtraSaves() {
+        Long productId = products.get(3).getId();
+        cartService.removeOne(productId);
+        CartDTO cart = cartService.removeOne(productId);
+        entityManager.flush();
+
+        assertEquals(CART_LINES - 1, cart.getItems().size());
+        assertEquals(1, statistics.getEntityDeleteCount());
+    }
+
+    @Test
+    void deltaResponseCarriesOnlyTheChangedLineAndTotals() {
+        Long newProductId = products.get(CART_LINES).getId();
+        CartDeltaDTO added = CartDeltaDTO.of(cartService.addItem(newProductId, 3), newProductId);
+
+        assertEquals(3, added.getItem().getQuantity());
+        assertEquals(CART_LINES + 1, added.getItemCount());
+        assertEquals(CART_LINES * 2 + 3, added.getTotalQuantity());
+        assertEquals((CART_LINES * 2 + 3) * 10.0, added.getTotal());
+
+        Long removedId = products.get(0).getId();
+        assertNull(CartDeltaDTO.of(cartService.removeItem(removedId), removedId).getItem());
+    }
+
+    @Test
+    void batchAppliesAllOperationsWithOneCartLoadAndOneProductLookup() {
+        Long newProductId = products.get(CART_LINES).getId();
+
+        CartDTO cart = cartService.applyOperations(List.of(
+                new CartOperationDTO(Type.SET, products.get(0).getId(), 7),
+                new CartOperationDTO(Type.INCREMENT, products.get(1).getId(), 3),
+                new CartOperationDTO(Type.REMOVE, products.get(2).getId(), null),
+                new CartOperationDTO(Type.INCREMENT, products.get(3).getId(), -2),
+                new CartOperationDTO(Type.INCREMENT, newProductId, 4)));
+
+        // Carrito (fetch join) + findAllById del producto nuevo
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(CART_LINES - 1, cart.getItems().size());
+        assertEquals(7, quantityOf(cart, products.get(0).getId()));
+        assertEquals(5, quantityOf(cart, products.get(1).getId()));
+        assertEquals(4, quantityOf(cart, newProductId));
+    }
+
+    @Test
+    void batchIsRejectedAsAWholeWhenAnyFinalQuantityExceedsStock() {
+        Long productId = products.get(0).getId();
+
+        assertThrows(RuntimeException.class, () -> cartService.applyOperations(List.of(
+                new CartOperationDTO(Type.INCREMENT, productId, 30),
+                new CartOperationDTO(Type.INCREMENT, productId, 30))));
+    }
+
+    private int quantityOf(CartDTO cart, Long productId) {
+        return cart.getItems().stream()
+                .filter(item -> item.getProductId().equals(productId))
+                .findFirst().orElseThrow().getQuantity();
+    }
+}
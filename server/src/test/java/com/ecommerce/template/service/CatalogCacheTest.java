@@ -0,0 +1,79 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.CategoryDTO;
+import com.ecommerce.template.dto.ProductDTO;
+import com.ecommerce.template.model.Category;
+import com.ecommerce.template.model.Product;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CatalogCacheTest {
+
+    private final CatalogCache catalogCache = new CatalogCache(100, 300);
+
+    @Test
+    void resultLoadedWhileInvalidatingIsReloaded() {
+        CatalogQueryKey key = CatalogQueryKey.of(null, 1L, null, true, null);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<ProductDTO>> loader = () -> {
+            // La primera consulta lee el estado viejo y, antes de que termine, el cambio commitea e invalida
+            if (loads.incrementAndGet() == 1) {
+                catalogCache.onCatalogChanged(CatalogChangedEvent.forProducts(List.of(product(1L, "Teclado"))));
+                return List.of();
+            }
+            return List.of(new ProductDTO());
+        };
+
+        assertEquals(1, catalogCache.getProducts(key, loader).size());
+        assertEquals(1, catalogCache.getProducts(key, loader).size());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void unrelatedInvalidationsKeepTheEntry() {
+        CatalogQueryKey key = CatalogQueryKey.of(null, 1L, null, true, null);
+        AtomicInteger loads = new AtomicInteger();
+
+        catalogCache.getProducts(key, () -> {
+            loads.incrementAndGet();
+            return List.of(new ProductDTO());
+        });
+        catalogCache.onCatalogChanged(CatalogChangedEvent.forProducts(List.of(product(2L, "Remera"))));
+        catalogCache.onCatalogChanged(CatalogChangedEvent.forCategories());
+
+        catalogCache.getProducts(key, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void categoriesLoadedWhileInvalidatingAreReloaded() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<CategoryDTO>> loader = () -> {
+            if (loads.incrementAndGet() == 1) {
+                catalogCache.onCatalogChanged(CatalogChangedEvent.forCategories());
+                return List.of();
+            }
+            return List.of(new CategoryDTO());
+        };
+
+        assertEquals(1, catalogCache.getCategories(loader).size());
+        assertEquals(1, catalogCache.getCategories(loader).size());
+        assertEquals(2, loads.get());
+    }
+
+    private static Product product(Long categoryId, String name) {
+        Category category = new Category("Cat " + categoryId);
+        category.setId(categoryId);
+        return new Product(name, new BigDecimal("10.00"), 1, category, null, null, true);
+    }
+}
@@ -0,0 +1,95 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.config.AsyncConfig;
+import com.ecommerce.template.dto.ProductDTO;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+@SpringJUnitConfig({CatalogSnapshots.class, CatalogVersion.class, AsyncConfig.class, JacksonAutoConfiguration.class})
+class CatalogSnapshotsTest {
+
+    @Autowired
+    private CatalogSnapshots catalogSnapshots;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private ProductService productService;
+
+    private final ProductDTO keyboard = product(1L, "Teclado", 10L);
+    private final ProductDTO mouse = product(2L, "Mouse", 20L);
+
+    @BeforeEach
+    void setUp() {
+        when(productService.getAllProducts(isNull(), isNull(), isNull(), any(), any()))
+                .thenReturn(List.of(keyboard, mouse));
+    }
+
+    @Test
+    void defaultViewsArePreSerializedPerCategory() throws Exception {
+        catalogSnapshots.rebuildNow();
+
+        CatalogSnapshots.View all = catalogSnapshots.find(null, null, null, true, "price_asc");
+        assertNotNull(all);
+        assertArrayEquals(objectMapper.writeValueAsBytes(List.of(keyboard, mouse)), all.json());
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(all.gzip()))) {
+            assertArrayEquals(all.json(), gzip.readAllBytes());
+        }
+
+        CatalogSnapshots.View peripherals = catalogSnapshots.find(null, 20L, false, true, null);
+        assertArrayEquals(objectMapper.writeValueAsBytes(List.of(mouse)), peripherals.json());
+
+        // Búsquedas, filtros de stock y el listado del admin (active sin filtrar) siguen el camino normal
+        assertNull(catalogSnapshots.find("mouse", null, null, true, null));
+        assertNull(catalogSnapshots.find(null, null, true, true, null));
+        assertNull(catalogSnapshots.find(null, null, null, null, null));
+    }
+
+    @Test
+    void staleSnapshotIsNeverServed() {
+        catalogSnapshots.rebuildNow();
+        long built = catalogVersion.current();
+
+        catalogVersion.onCatalogChanged(CatalogChangedEvent.forCategories());
+        assertNull(catalogSnapshots.find(null, null, null, true, null));
+
+        catalogSnapshots.rebuildNow();
+        CatalogSnapshots.View fresh = catalogSnapshots.find(null, null, null, true, null);
+        assertEquals(built + 1, fresh.version());
+    }
+
+    private static ProductDTO product(Long id, String name, Long categoryId) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setStock(5);
+        product.setCategoryId(categoryId);
+        product.setActive(true);
+        return product;
+    }
+}
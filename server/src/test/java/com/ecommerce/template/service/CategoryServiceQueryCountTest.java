@@ -0,0 +1,95 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.CategoryDTO;
+import com.ecommerce.template.dto.CategorySummaryDTO;
+import com.ecommerce.template.model.Category;
+import com.ecommerce.template.model.Product;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({CategoryService.class, CatalogCache.class})
+class CategoryServiceQueryCountTest {
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void categoryTreeUsesFixedNumberOfStatementsAsCatalogGrows() {
+        seed(3, 4);
+        assertTreeStatements(3, 12);
+
+        seed(25, 10);
+        assertTreeStatements(28, 262);
+    }
+
+    @Test
+    void summaryModeNeverLoadsProductRows() {
+        seed(10, 8);
+        entityManager.clear();
+        statistics.clear();
+
+        List<CategorySummaryDTO> summaries = categoryService.getCategorySummaries();
+
+        assertEquals(10, summaries.size());
+        assertTrue(summaries.stream().allMatch(summary -> summary.getProductCount() == 8));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    private void assertTreeStatements(int expectedCategories, int expectedProducts) {
+        entityManager.clear();
+        catalogCache.onCatalogChanged(CatalogChangedEvent.forCategories());
+        statistics.clear();
+
+        List<CategoryDTO> categories = categoryService.getAllCategories();
+
+        assertEquals(expectedCategories, categories.size());
+        assertEquals(expectedProducts, categories.stream().mapToInt(category -> category.getProducts().size()).sum());
+        assertTrue(statistics.getPrepareStatementCount() <= 2,
+                "Se esperaban como máximo 2 consultas, hubo " + statistics.getPrepareStatementCount());
+    }
+
+    private void seed(int categories, int productsPerCategory) {
+        for (int c = 0; c < categories; c++) {
+            Category category = entityManager.persist(new Category("Categoria-" + System.nanoTime() + "-" + c));
+            for (int p = 0; p < productsPerCategory; p++) {
+                entityManager.persist(new Product("Producto " + p, new BigDecimal("10.00"), 5, category, null, null, true));
+            }
+        }
+        entityManager.flush();
+    }
+}
@@ -0,0 +1,119 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.config.AsyncConfig;
+import com.ecommerce.template.dto.ImageSrcset;
+import com.ecommerce.template.model.ImageVariant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Almacenamiento local en una carpeta temporal: el pipeline completo sin red
+@SpringJUnitConfig({ImageService.class, LocalImageStorage.class, AsyncConfig.class})
+@TestPropertySource(properties = "images.storage=local")
+class ImageServiceTest {
+
+    @TempDir
+    static Path root;
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) {
+        registry.add("images.local.root", () -> root.toString());
+    }
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private LocalImageStorage storage;
+
+    @Test
+    void sameContentIsStoredOnceAndResizedInTheBackground() throws Exception {
+        byte[] png = png(2000, 1000);
+
+        String url = imageService.uploadImage(new MockMultipartFile("file", "monitor.png", "image/png", png));
+        String again = imageService.uploadImage(new MockMultipartFile("file", "copia.png", "image/png", png));
+
+        assertEquals(url, again);
+        assertTrue(url.matches("/api/images/files/[0-9a-f]{64}/detail"), url);
+        String hash = url.split("/")[4];
+        try (Stream<Path> originals = Files.walk(root)) {
+            assertEquals(1, originals.filter(p -> p.getFileName().toString().startsWith("original.")).count());
+        }
+        assertEquals(-1, Files.mismatch(storage.findOriginal(hash), writeTemp(png)));
+
+        for (ImageVariant variant : ImageVariant.values()) {
+            Path derivative = storage.directory(hash).resolve(variant.getName() + ".jpg");
+            awaitFile(derivative);
+            BufferedImage image = ImageIO.read(derivative.toFile());
+            assertEquals(variant.getWidth(), image.getWidth());
+            assertEquals(variant.getWidth() / 2, image.getHeight());
+        }
+
+        assertEquals("/api/images/files/" + hash + "/thumb 160w, /api/images/files/" + hash + "/card 480w, "
+                + "/api/images/files/" + hash + "/detail 1200w", ImageSrcset.of(url));
+    }
+
+    @Test
+    void contentThatIsNotAnImageIsRejected() {
+        // El Content-Type lo elige el cliente: se mira el contenido
+        MockMultipartFile fake = new MockMultipartFile("file", "virus.png", "image/png", "MZ no soy un png".getBytes());
+
+        assertThrows(RuntimeException.class, () -> imageService.uploadImage(fake));
+    }
+
+    @Test
+    void cloudinaryUrlsGetSizedTransformations() {
+        String original = "https://res.cloudinary.com/demo/image/upload/v17/gamerstore/abc.jpg";
+        String detail = ImageSrcset.url(original, ImageVariant.DETAIL);
+
+        assertEquals("https://res.cloudinary.com/demo/image/upload/c_limit,w_1200,f_auto,q_auto/v17/gamerstore/abc.jpg", detail);
+        // A partir de la URL ya transformada se reemplaza la transformación, no se encadena
+        assertEquals("https://res.cloudinary.com/demo/image/upload/c_limit,w_160,f_auto,q_auto/v17/gamerstore/abc.jpg",
+                ImageSrcset.url(detail, ImageVariant.THUMB));
+        assertNull(ImageSrcset.of("https://lh3.googleusercontent.com/a/foto"));
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static Path writeTemp(byte[] content) throws Exception {
+        Path file = Files.createTempFile(root, "expected-", ".png");
+        return Files.write(file, content);
+    }
+
+    private static void awaitFile(Path file) throws InterruptedException {
+        for (int i = 0; i < 100 && !Files.exists(file); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(Files.exists(file), "no se generó " + file.getFileName());
+    }
+}
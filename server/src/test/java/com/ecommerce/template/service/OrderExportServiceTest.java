@@ -0,0 +1,159 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.model.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({OrderExportService.class, JacksonAutoConfiguration.class})
+class OrderExportServiceTest {
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        Category category = entityManager.persist(new Category("Perifericos"));
+        Product mouse = entityManager.persist(new Product("Mouse \"Pro\", inalámbrico", new BigDecimal("10.00"), 5, category, null, null, true));
+        Product teclado = entityManager.persist(new Product("Teclado", new BigDecimal("20.00"), 5, category, "/img/teclado.jpg", null, true));
+
+        User user = new User("finanzas", "secret");
+        user.setEmail("finanzas@mail.com");
+        user.setRole("USER");
+        entityManager.persist(user);
+
+        Order withItems = new Order(user, new BigDecimal("30.00"), OrderStatus.PAGADO);
+        withItems.setDate(LocalDateTime.of(2025, 3, 1, 10, 0));
+        withItems.getItems().add(new OrderItem(withItems, mouse, 1, new BigDecimal("10.00")));
+        withItems.getItems().add(new OrderItem(withItems, teclado, 1, new BigDecimal("20.00")));
+        entityManager.persist(withItems);
+
+        Order empty = new Order(user, BigDecimal.ZERO, OrderStatus.CANCELADO);
+        empty.setDate(LocalDateTime.of(2025, 3, 2, 10, 0));
+        entityManager.persist(empty);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void csvHasOneLinePerItemAndEscapesText() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = orderExportService.export(OrderExportService.Format.CSV, null, null, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, rows);
+        assertEquals(4, lines.length);
+        assertEquals(13, lines[0].split(",").length);
+        assertTrue(lines[1].contains("\"Mouse \"\"Pro\"\", inalámbrico\""));
+        assertTrue(lines[3].endsWith(",,,,,"));
+    }
+
+    @Test
+    void ndjsonGroupsItemsPerOrderAndAppliesFilters() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long orders = orderExportService.export(OrderExportService.Format.NDJSON, null, null, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, orders);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("PAGADO", first.get("status").asText());
+        assertEquals(2, first.get("items").size());
+        assertEquals(0, objectMapper.readTree(lines[1]).get("items").size());
+
+        ByteArrayOutputStream paidOnly = new ByteArrayOutputStream();
+        assertEquals(1, orderExportService.export(OrderExportService.Format.NDJSON, OrderStatus.PAGADO, null, null, paidOnly));
+    }
+
+    @Test
+    void orderListIsOneJsonArrayNewestFirstWithTheEntityShape() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(2, orderExportService.writeOrderList(null, out));
+
+        JsonNode orders = objectMapper.readTree(out.toByteArray());
+        assertEquals(2, orders.size());
+        assertEquals("CANCELADO", orders.get(0).get("status").asText());
+        assertEquals(0, orders.get(0).get("items").size());
+        JsonNode paid = orders.get(1);
+        assertEquals("finanzas@mail.com", paid.get("user").get("email").asText());
+        assertEquals("Teclado", paid.get("items").get(1).get("product").get("name").asText());
+        assertEquals("/img/teclado.jpg", paid.get("items").get(1).get("product").get("imageUrl").asText());
+        assertEquals(0, new BigDecimal("20.00").compareTo(paid.get("items").get(1).get("price").decimalValue()));
+
+        ByteArrayOutputStream other = new ByteArrayOutputStream();
+        assertEquals(0, orderExportService.writeOrderList(-1L, other));
+        assertEquals("[]", other.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void largeExportIsWrittenWhileStreamingWithoutManagedEntities() throws Exception {
+        // Bastante más filas que el fetch size del cursor (1000): 1500 órdenes ENVIADO con 2 items cada una
+        Category category = entityManager.persist(new Category("Volumen"));
+        Product product = entityManager.persist(new Product("Cable", new BigDecimal("1.00"), 5, category, null, null, true));
+        User buyer = entityManager.persist(new User("volumen", "secret"));
+        for (int i = 0; i < 1500; i++) {
+            Order order = new Order(buyer, new BigDecimal("2.00"), OrderStatus.ENVIADO);
+            order.getItems().add(new OrderItem(order, product, 1, new BigDecimal("1.00")));
+            order.getItems().add(new OrderItem(order, product, 1, new BigDecimal("1.00")));
+            entityManager.persist(order);
+            if (i % 500 == 499) {
+                entityManager.flush();
+                entityManager.clear();
+                buyer = entityManager.find(User.class, buyer.getId());
+                product = entityManager.find(Product.class, product.getId());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Cada vez que el buffer baja a la respuesta: la sesión no tiene entidades (proyección a DTO)
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+        List<Integer> managedOnWrite = new ArrayList<>();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        OutputStream out = new FilterOutputStream(body) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                managedOnWrite.add(session.getStatistics().getEntityCount());
+                body.write(bytes, offset, length);
+            }
+        };
+
+        long rows = orderExportService.export(OrderExportService.Format.CSV, OrderStatus.ENVIADO, null, null, out);
+
+        assertEquals(3000, rows);
+        assertEquals(3001, body.toString(StandardCharsets.UTF_8).split("\n").length);
+        // La salida se fue escribiendo en tramos del buffer mientras avanzaba el cursor, no toda al final
+        assertTrue(managedOnWrite.size() > 1, "escrituras: " + managedOnWrite.size());
+        assertTrue(managedOnWrite.stream().allMatch(count -> count == 0));
+    }
+}
@@ -0,0 +1,146 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.OrderDetailDTO;
+import com.ecommerce.template.dto.OrderSummaryDTO;
+import com.ecommerce.template.dto.PageDTO;
+import com.ecommerce.template.model.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({OrderService.class, StockService.class, JpaCartStore.class, SimpleMeterRegistry.class})
+class OrderServiceQueryCountTest {
+
+    private static final LocalDateTime BASE_DATE = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User customer;
+    private List<Order> customerOrders;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Category category = entityManager.persist(new Category("Perifericos"));
+        List<Product> products = new ArrayList<>();
+        for (int p = 0; p < 5; p++) {
+            products.add(entityManager.persist(new Product("Producto " + p, new BigDecimal("10.00"), 50, category, null, null, true)));
+        }
+
+        customer = persistUser("cliente", "USER");
+        User other = persistUser("otro", "USER");
+
+        // 30 órdenes del cliente (una por día) y 10 de otro usuario, cada una con 3 items
+        customerOrders = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            customerOrders.add(persistOrder(customer, i, i % 3 == 0 ? OrderStatus.PAGADO : OrderStatus.PENDIENTE, products));
+        }
+        for (int i = 0; i < 10; i++) {
+            persistOrder(other, i, OrderStatus.PAGADO, products);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        authenticate(customer);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void userOrderPageIsNewestFirstAndUsesOneStatement() {
+        PageDTO<OrderSummaryDTO> first = orderService.getUserOrderPage(null, null, null, 0, 20);
+
+        assertEquals(20, first.getItems().size());
+        assertTrue(first.isHasNext());
+        assertEquals(customerOrders.get(29).getId(), first.getItems().get(0).getId());
+        assertTrue(first.getItems().stream().allMatch(summary -> summary.getItemCount() == 3));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        PageDTO<OrderSummaryDTO> second = orderService.getUserOrderPage(null, null, null, 1, 20);
+        assertEquals(10, second.getItems().size());
+        assertFalse(second.isHasNext());
+    }
+
+    @Test
+    void adminPageFiltersByStatusAndDateRange() {
+        // Días 0..9 del cliente: PAGADO en 0, 3, 6, 9; más las 10 del otro usuario (todas PAGADO, días 0..9)
+        LocalDate from = BASE_DATE.toLocalDate();
+        LocalDate to = BASE_DATE.plusDays(9).toLocalDate();
+
+        PageDTO<OrderSummaryDTO> page = orderService.getOrderPage(OrderStatus.PAGADO, from, to, 0, 50);
+
+        assertEquals(14, page.getItems().size());
+        assertTrue(page.getItems().stream().allMatch(summary -> summary.getStatus() == OrderStatus.PAGADO));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void orderDetailLoadsItemsAndProductsInOneStatement() {
+        OrderDetailDTO detail = orderService.getOrderDetail(customerOrders.get(0).getId());
+
+        assertEquals(3, detail.getItems().size());
+        assertEquals("cliente", detail.getUsername());
+        assertTrue(detail.getItems().stream().allMatch(item -> item.getProductName() != null));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private User persistUser(String username, String role) {
+        User user = new User(username, "secret");
+        user.setEmail(username + "@mail.com");
+        user.setRole(role);
+        return entityManager.persist(user);
+    }
+
+    private Order persistOrder(User user, int day, OrderStatus status, List<Product> products) {
+        Order order = new Order(user, new BigDecimal("30.00"), status);
+        order.setDate(BASE_DATE.plusDays(day));
+        for (int i = 0; i < 3; i++) {
+            order.getItems().add(new OrderItem(order, products.get((day + i) % products.size()), 1, new BigDecimal("10.00")));
+        }
+        return entityManager.persist(order);
+    }
+
+    private void authenticate(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
@@ -0,0 +1,184 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.BulkPriceUpdateDTO;
+import com.ecommerce.template.dto.BulkStockUpdateDTO;
+import com.ecommerce.template.dto.BulkUpdateResultDTO;
+import com.ecommerce.template.model.*;
+import com.ecommerce.template.repository.CategoryRepository;
+import com.ecommerce.template.repository.OrderRepository;
+import com.ecommerce.template.repository.ProductRepository;
+import com.ecommerce.template.repository.UserRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Sin transacción de test: cada ajuste commitea y las lecturas posteriores pasan por la caché L2 como en producción
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulkupdate;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "catalog.bulk.batch-size=2"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductBulkUpdateService.class, SecondLevelCache.class})
+class ProductBulkUpdateServiceTest {
+
+    @Autowired
+    private ProductBulkUpdateService bulkUpdateService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String suffix;
+    private Category shoes;
+    private Product runner;
+    private Product shirt;
+    private Product cap;
+
+    @BeforeEach
+    void setUp() {
+        suffix = "-" + System.nanoTime();
+        shoes = categoryRepository.save(new Category("Calzado" + suffix));
+        Category hats = categoryRepository.save(new Category("Gorras" + suffix));
+        runner = save("RUN", "Zapatilla", "100.00", 5, shoes);
+        shirt = save("TEE", "Zapatilla Kids", "19.99", 1, shoes);
+        cap = save("CAP", "Gorra", "50.00", 0, hats);
+    }
+
+    @Test
+    void percentChangeByCategoryPreviewsThenUpdatesOnlyCatalogPrices() {
+        User user = new User("bulk" + suffix, "secret");
+        user.setRole("USER");
+        Order order = new Order(userRepository.save(user), new BigDecimal("100.00"), OrderStatus.PAGADO);
+        order.getItems().add(new OrderItem(order, runner, 1, new BigDecimal("100.00")));
+        order = orderRepository.save(order);
+        productRepository.findById(runner.getId()); // queda en la caché L2 con el precio viejo
+
+        BulkPriceUpdateDTO request = new BulkPriceUpdateDTO();
+        request.setCategoryId(shoes.getId());
+        request.setPercent(new BigDecimal("-15"));
+        request.setDryRun(true);
+
+        BulkUpdateResultDTO preview = bulkUpdateService.adjustPrices(request);
+        assertEquals(2, preview.getAffected());
+        assertEquals(new BigDecimal("85.00"), preview.getPreview().get(0).after());
+        assertEquals(new BigDecimal("16.99"), preview.getPreview().get(1).after());
+        assertEquals(0, new BigDecimal("100.00").compareTo(price(runner)));
+
+        request.setDryRun(false);
+        assertEquals(2, bulkUpdateService.adjustPrices(request).getAffected());
+
+        assertEquals(0, new BigDecimal("85.00").compareTo(price(runner)));
+        assertEquals(0, new BigDecimal("16.99").compareTo(price(shirt)));
+        assertEquals(0, new BigDecimal("50.00").compareTo(price(cap)));
+        BigDecimal snapshot = jdbcTemplate.queryForObject(
+                "SELECT price FROM order_items WHERE order_id = ?", BigDecimal.class, order.getId());
+        assertEquals(0, new BigDecimal("100.00").compareTo(snapshot));
+    }
+
+    @Test
+    void adjustmentThatWouldLeaveANonPositivePriceIsRejectedWhole() {
+        BulkPriceUpdateDTO request = new BulkPriceUpdateDTO();
+        request.setCategoryId(shoes.getId());
+        request.setAmount(new BigDecimal("-20"));
+
+        assertThrows(IllegalArgumentException.class, () -> bulkUpdateService.adjustPrices(request));
+        assertEquals(0, new BigDecimal("100.00").compareTo(price(runner)));
+
+        request.setPercent(BigDecimal.TEN);
+        assertThrows(IllegalArgumentException.class, () -> bulkUpdateService.adjustPrices(request));
+
+        // Porcentaje con decimales: no se redondea el factor, solo el precio final
+        BulkPriceUpdateDTO fractional = new BulkPriceUpdateDTO();
+        fractional.setCategoryId(cap.getCategory().getId());
+        fractional.setPercent(new BigDecimal("-12.5"));
+        assertEquals(1, bulkUpdateService.adjustPrices(fractional).getAffected());
+        assertEquals(0, new BigDecimal("43.75").compareTo(price(cap)));
+
+        // Los comodines de LIKE en el nombre se buscan literales: "_apatilla" no es "Zapatilla"
+        BulkPriceUpdateDTO wildcard = new BulkPriceUpdateDTO();
+        wildcard.setCategoryId(shoes.getId());
+        wildcard.setName("_apatilla");
+        wildcard.setPercent(BigDecimal.TEN);
+        wildcard.setDryRun(true);
+        assertEquals(0, bulkUpdateService.adjustPrices(wildcard).getAffected());
+        wildcard.setName("zapatilla k");
+        assertEquals(1, bulkUpdateService.adjustPrices(wildcard).getAffected());
+    }
+
+    @Test
+    void stockIsAdjustedBySkuAndUnknownOrNegativeResultsAreSkipped() {
+        BulkStockUpdateDTO increment = new BulkStockUpdateDTO();
+        increment.setMode(BulkStockUpdateDTO.Mode.INCREMENT);
+        increment.setItems(List.of(item("RUN", -3), item("TEE", -5), item("NOPE", 1), item("RUN", 1), item("CAP", 4)));
+        increment.setDryRun(true);
+
+        BulkUpdateResultDTO preview = bulkUpdateService.updateStock(increment);
+        assertEquals(2, preview.getAffected());
+        assertEquals(List.of("NOPE" + suffix, "TEE" + suffix), preview.getSkipped());
+        assertEquals(5, stock(runner));
+
+        increment.setDryRun(false);
+        BulkUpdateResultDTO result = bulkUpdateService.updateStock(increment);
+        assertEquals(2, result.getAffected());
+        assertEquals(List.of("NOPE" + suffix, "TEE" + suffix), result.getSkipped());
+        assertEquals(3, stock(runner));
+        assertEquals(1, stock(shirt));
+        assertEquals(4, stock(cap));
+
+        BulkStockUpdateDTO set = new BulkStockUpdateDTO();
+        set.setMode(BulkStockUpdateDTO.Mode.SET);
+        set.setItems(List.of(item("TEE", 12)));
+        assertEquals(1, bulkUpdateService.updateStock(set).getAffected());
+        assertEquals(12, stock(shirt));
+    }
+
+    private Product save(String sku, String name, String price, int stock, Category category) {
+        Product product = new Product(name, new BigDecimal(price), stock, category, null, null, true);
+        product.setSku(sku + suffix);
+        return productRepository.save(product);
+    }
+
+    private BulkStockUpdateDTO.Item item(String sku, int quantity) {
+        BulkStockUpdateDTO.Item item = new BulkStockUpdateDTO.Item();
+        item.setSku(sku + suffix);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private BigDecimal price(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getPrice();
+    }
+
+    private int stock(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+}
@@ -0,0 +1,192 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.ProductImportResultDTO;
+import com.ecommerce.template.model.Category;
+import com.ecommerce.template.repository.CategoryRepository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Sin base: el upsert es SQL de Postgres (ON CONFLICT), acá se prueba la lectura, validación, tramos e invalidación
+class ProductImportServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SecondLevelCache secondLevelCache;
+    private ApplicationEventPublisher eventPublisher;
+    private ProductImportService importService;
+
+    // SKUs enviados en cada batchUpdate, copiados en el momento (el servicio reutiliza la lista del tramo)
+    private final List<List<String>> batches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        secondLevelCache = mock(SecondLevelCache.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+
+        Category shoes = new Category("Zapatillas");
+        shoes.setId(1L);
+        Category shirts = new Category("Remeras");
+        shirts.setId(2L);
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        when(categoryRepository.findAll()).thenReturn(List.of(shoes, shirts));
+
+        when(jdbcTemplate.batchUpdate(anyString(), anyRows(), anyInt(), anySetter()))
+                .thenAnswer(invocation -> {
+                    Collection<Object> rows = invocation.getArgument(1);
+                    ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+                    List<String> skus = new ArrayList<>();
+                    for (Object row : rows) {
+                        PreparedStatement ps = mock(PreparedStatement.class);
+                        doAnswer(set -> skus.add(set.getArgument(1))).when(ps).setString(eq(1), anyString());
+                        setter.setValues(ps, row);
+                    }
+                    batches.add(skus);
+                    return new int[0][];
+                });
+
+        // Tramos de 3 filas en batches de 2: con 5 filas válidas salen dos transacciones
+        importService = new ProductImportService(jdbcTemplate, categoryRepository, new ObjectMapper(),
+                secondLevelCache, eventPublisher, mock(PlatformTransactionManager.class), 2, 3, 10);
+    }
+
+    @Test
+    void csvIsImportedInChunksAndInvalidatesTheCatalogOnce() throws Exception {
+        String csv = """
+                SKU,name,price,stock,category,description
+                A-1,Zapatilla Run,15000.50,10,zapatillas,"Liviana, con ""amortiguación""
+                en dos líneas"
+                A-2,Zapatilla Trail,18000,5,Zapatillas,
+                B-1,Remera,-3,5,Remeras,
+                B-2,Remera Lisa,4000,2,Pantalones,
+
+                B-3,Remera Estampada,4500,1,remeras,
+                B-4,Remera Manga Larga,5200,0,REMERAS,
+                B-5,X,10,1,Remeras,
+                """;
+
+        ProductImportResultDTO result = importService.importProducts(ProductImportService.Format.CSV, stream(csv));
+
+        assertEquals(7, result.getRows());
+        assertEquals(4, result.getImported());
+        assertEquals(3, result.getFailed());
+        assertFalse(result.isErrorsTruncated());
+        assertEquals(List.of(List.of("A-1", "A-2", "B-3"), List.of("B-4")), batches);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyRows(), eq(2), anySetter());
+
+        // La línea es la del archivo (la descripción de A-1 ocupa dos) para que el admin encuentre la fila
+        List<ProductImportResultDTO.RowError> errors = result.getErrors();
+        assertEquals(new ProductImportResultDTO.RowError(5, "B-1", "El precio debe ser mayor a 0"), errors.get(0));
+        assertEquals(new ProductImportResultDTO.RowError(6, "B-2", "Categoría no encontrada: Pantalones"), errors.get(1));
+        assertEquals(10, errors.get(2).line());
+
+        verify(secondLevelCache, times(1)).evictAllProducts();
+        verify(eventPublisher, times(1)).publishEvent(CatalogChangedEvent.forAllProducts());
+    }
+
+    @Test
+    void malformedNdjsonLinesAreReportedAndTheRestIsImported() throws Exception {
+        String ndjson = """
+                {"sku":"N-1","name":"Gorra","price":2500,"stock":3,"category_id":2,"active":false}
+                {"sku":"N-2","name":"Gorra Roja",
+                ["no","es","un","objeto"]
+                {"sku":"N-3","name":"Gorra Azul","price":"2600","stock":1,"category_id":9}
+                """;
+
+        ProductImportResultDTO result = importService.importProducts(ProductImportService.Format.NDJSON, stream(ndjson));
+
+        assertEquals(4, result.getRows());
+        assertEquals(1, result.getImported());
+        assertEquals(List.of(List.of("N-1")), batches);
+        assertEquals(List.of(2, 3, 4), result.getErrors().stream().map(ProductImportResultDTO.RowError::line).toList());
+        assertEquals("Categoría no encontrada: 9", result.getErrors().get(2).error());
+    }
+
+    @Test
+    void failedChunkIsRetriedRowByRowToIsolateTheBadRows() throws Exception {
+        reset(jdbcTemplate);
+        when(jdbcTemplate.batchUpdate(anyString(), anyRows(), anyInt(), anySetter()))
+                .thenThrow(new DuplicateKeyException("batch"));
+        List<String> written = new ArrayList<>();
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class))).thenAnswer(invocation -> {
+            PreparedStatementSetter setter = invocation.getArgument(1);
+            String sku = skusOf(List.of(setter)).get(0);
+            if (sku.equals("C-2")) throw new DuplicateKeyException("uk_products_sku");
+            written.add(sku);
+            return 1;
+        });
+
+        String csv = """
+                sku,name,price,stock,category_id
+                C-1,Buzo,9000,1,2
+                C-2,Buzo Gris,9000,1,2
+                C-3,Buzo Negro,9000,1,2
+                """;
+        ProductImportResultDTO result = importService.importProducts(ProductImportService.Format.CSV, stream(csv));
+
+        // El tramo falló entero: se reintenta fila por fila, una sentencia por cada una
+        ArgumentCaptor<PreparedStatementSetter> perRow = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+        verify(jdbcTemplate, times(3)).update(anyString(), perRow.capture());
+        assertEquals(List.of("C-1", "C-2", "C-3"), skusOf(perRow.getAllValues()));
+        assertEquals(List.of("C-1", "C-3"), written);
+        assertEquals(2, result.getImported());
+        assertEquals(List.of(new ProductImportResultDTO.RowError(3, "C-2", "uk_products_sku")), result.getErrors());
+        verify(eventPublisher, times(1)).publishEvent(CatalogChangedEvent.forAllProducts());
+    }
+
+    @Test
+    void nothingImportedLeavesTheCachesAlone() throws Exception {
+        ProductImportResultDTO result = importService.importProducts(ProductImportService.Format.CSV,
+                stream("sku,name,price,stock,category\nZ-1,Nada,abc,1,Remeras\n"));
+
+        assertEquals(1, result.getFailed());
+        assertEquals("Precio o stock no numérico", result.getErrors().get(0).error());
+        verifyNoInteractions(secondLevelCache, eventPublisher);
+    }
+
+    // Matchers tipados: batchUpdate es genérico en el tipo de fila (privado del servicio)
+    private static Collection<Object> anyRows() {
+        return ArgumentMatchers.<Collection<Object>>any();
+    }
+
+    private static ParameterizedPreparedStatementSetter<Object> anySetter() {
+        return ArgumentMatchers.<ParameterizedPreparedStatementSetter<Object>>any();
+    }
+
+    private static List<String> skusOf(List<PreparedStatementSetter> setters) throws Exception {
+        List<String> skus = new ArrayList<>();
+        for (PreparedStatementSetter setter : setters) {
+            PreparedStatement ps = mock(PreparedStatement.class);
+            doAnswer(set -> skus.add(set.getArgument(1))).when(ps).setString(eq(1), anyString());
+            setter.setValues(ps);
+        }
+        return skus;
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
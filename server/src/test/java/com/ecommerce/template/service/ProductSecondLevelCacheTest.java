@@ -0,0 +1,117 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.PaymentRequestDTO;
+import com.ecommerce.template.model.*;
+import com.ecommerce.template.repository.CategoryRepository;
+import com.ecommerce.template.repository.ProductRepository;
+import com.ecommerce.template.repository.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Sin transacción de test: cada paso commitea, como en producción, y la caché L2 se comparte entre pasos
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:l2cache;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrderService.class, StockService.class, JpaCartStore.class, SimpleMeterRegistry.class})
+class ProductSecondLevelCacheTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JpaCartStore cartStore;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Category category;
+    private Product product;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        category = categoryRepository.save(new Category("Cache-" + System.nanoTime()));
+        product = productRepository.save(new Product("Monitor", new BigDecimal("100.00"), 10, category, null, null, true));
+
+        user = new User("l2-" + System.nanoTime(), "secret");
+        user.setRole("USER");
+        user = userRepository.save(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void productAndCategoryReadsAreServedFromTheCache() {
+        productRepository.findById(product.getId());
+        categoryRepository.findById(category.getId());
+        statistics.clear();
+
+        productRepository.findById(product.getId());
+        categoryRepository.findById(category.getId());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void checkoutStockChangesAreNeverServedStale() {
+        cartStore.addItem(user, product.getId(), 3);
+        assertEquals(10, productRepository.findById(product.getId()).orElseThrow().getStock()); // queda cacheado
+        assertTrue(entityManagerFactory.getCache().contains(Product.class, product.getId()));
+
+        orderService.createOrder(new PaymentRequestDTO(), user.getEmail());
+
+        assertFalse(entityManagerFactory.getCache().contains(Product.class, product.getId()));
+        assertEquals(7, productRepository.findById(product.getId()).orElseThrow().getStock());
+        assertEquals(7, productRepository.loadAllById(List.of(product.getId())).get(0).getStock());
+
+        // El carrito valida contra el stock nuevo aunque el producto vuelva a salir de la caché
+        assertThrows(RuntimeException.class, () -> cartStore.addItem(user, product.getId(), 8));
+        assertEquals(7, cartStore.addItem(user, product.getId(), 7).getItems().get(0).getStock());
+    }
+}
@@ -0,0 +1,88 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.model.Order;
+import com.ecommerce.template.model.OrderStatus;
+import com.ecommerce.template.model.RollupGranularity;
+import com.ecommerce.template.model.SalesRollup;
+import com.ecommerce.template.service.SalesRollupService.RollupDelta;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SalesRollupServiceTest {
+
+    private static final LocalDateTime ORDER_DATE = LocalDateTime.of(2025, 3, 1, 10, 45);
+
+    // Dos líneas del producto 7 (se agrupan) y una del producto 3
+    private static final List<SalesChangedEvent.Line> LINES = List.of(
+            new SalesChangedEvent.Line(7L, 1L, 2, new BigDecimal("20.00")),
+            new SalesChangedEvent.Line(3L, 2L, 1, new BigDecimal("5.00")),
+            new SalesChangedEvent.Line(7L, 1L, 1, new BigDecimal("10.00")));
+
+    @Test
+    void newOrderAddsProductAndTotalRowsPerGranularity() {
+        List<RollupDelta> deltas = SalesRollupService.toDeltas(new SalesChangedEvent(1L, ORDER_DATE, LINES, 1, 0));
+
+        assertEquals(6, deltas.size());
+
+        RollupDelta hourTotal = deltas.get(0);
+        assertEquals(RollupGranularity.HOUR, hourTotal.granularity());
+        assertEquals(LocalDateTime.of(2025, 3, 1, 10, 0), hourTotal.bucketStart());
+        assertEquals(SalesRollup.TOTAL_PRODUCT_ID, hourTotal.productId());
+        assertEquals(new BigDecimal("35.00"), hourTotal.revenue());
+        assertEquals(4, hourTotal.units());
+        assertEquals(1, hourTotal.orderCount());
+        assertEquals(0, hourTotal.paidRevenue().signum());
+
+        RollupDelta product7 = deltas.get(2);
+        assertEquals(7L, product7.productId());
+        assertEquals(new BigDecimal("30.00"), product7.revenue());
+        assertEquals(3, product7.units());
+
+        RollupDelta dayTotal = deltas.get(3);
+        assertEquals(RollupGranularity.DAY, dayTotal.granularity());
+        assertEquals(LocalDateTime.of(2025, 3, 1, 0, 0), dayTotal.bucketStart());
+    }
+
+    @Test
+    void statusChangesProduceSignedDeltas() {
+        assertDeltaSigns(OrderStatus.PENDIENTE, OrderStatus.PAGADO, 0, 1);
+        assertDeltaSigns(OrderStatus.PAGADO, OrderStatus.CANCELADO, -1, -1);
+        assertDeltaSigns(OrderStatus.PENDIENTE, OrderStatus.CANCELADO, -1, 0);
+        assertDeltaSigns(OrderStatus.CANCELADO, OrderStatus.ENVIADO, 1, 1);
+        assertDeltaSigns(OrderStatus.PAGADO, OrderStatus.ENTREGADO, 0, 0);
+
+        SalesChangedEvent cancelPaid = new SalesChangedEvent(1L, ORDER_DATE, LINES, -1, -1);
+        RollupDelta total = SalesRollupService.toDeltas(cancelPaid).get(0);
+        assertEquals(new BigDecimal("-35.00"), total.revenue());
+        assertEquals(new BigDecimal("-35.00"), total.paidRevenue());
+        assertEquals(-4, total.paidUnits());
+        assertEquals(-1, total.orderCount());
+    }
+
+    @Test
+    void rowsAreSortedByBucketAndProductToAvoidCrossLocks() {
+        List<RollupDelta> deltas = SalesRollupService.toDeltas(new SalesChangedEvent(1L, ORDER_DATE, LINES, 1, 0));
+
+        for (int i = 1; i < deltas.size(); i++) {
+            RollupDelta previous = deltas.get(i - 1);
+            RollupDelta current = deltas.get(i);
+            assertTrue(previous.granularity().compareTo(current.granularity()) < 0
+                    || previous.productId() < current.productId());
+        }
+    }
+
+    private void assertDeltaSigns(OrderStatus previous, OrderStatus next, int orderSign, int paidSign) {
+        Order order = new Order();
+        order.setDate(ORDER_DATE);
+        SalesChangedEvent event = SalesChangedEvent.forStatusChange(order, previous, next);
+        assertEquals(orderSign, event.orderSign(), previous + " -> " + next);
+        assertEquals(paidSign, event.paidSign(), previous + " -> " + next);
+    }
+}
@@ -0,0 +1,134 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.model.Category;
+import com.ecommerce.template.model.Product;
+import com.ecommerce.template.repository.CategoryRepository;
+import com.ecommerce.template.repository.ProductRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Sin transacción de test: cada reserva tiene que commitear de verdad para competir con las demás
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({StockService.class, SimpleMeterRegistry.class})
+class StockServiceConcurrencyTest {
+
+    private static final int THREADS = 200;
+    private static final int ATTEMPTS = 600;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void hotSkuIsNeverOversold() throws Exception {
+        Product product = createProduct(150);
+        double rejectedBefore = meterRegistry.counter("stock.rejections", "stage", "checkout").count();
+
+        AtomicInteger sold = new AtomicInteger();
+        runConcurrently(() -> {
+            stockService.reserve(Map.of(product.getId(), 1));
+            sold.incrementAndGet();
+        });
+
+        assertEquals(150, sold.get());
+        assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getStock());
+        assertEquals(ATTEMPTS - 150, meterRegistry.counter("stock.rejections", "stage", "checkout").count() - rejectedBefore);
+    }
+
+    @Test
+    void multiProductReservationsInOppositeOrderNeitherDeadlockNorOversell() throws Exception {
+        Product first = createProduct(100);
+        Product second = createProduct(100);
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger turn = new AtomicInteger();
+        runConcurrently(() -> {
+            // La mitad de los pedidos arma el mapa A->B y la otra mitad B->A
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            if (turn.incrementAndGet() % 2 == 0) {
+                quantities.put(first.getId(), 1);
+                quantities.put(second.getId(), 1);
+            } else {
+                quantities.put(second.getId(), 1);
+                quantities.put(first.getId(), 1);
+            }
+            stockService.reserve(quantities);
+            sold.incrementAndGet();
+        });
+
+        assertEquals(100, sold.get());
+        assertEquals(0, productRepository.findById(first.getId()).orElseThrow().getStock());
+        assertEquals(0, productRepository.findById(second.getId()).orElseThrow().getStock());
+
+        stockService.release(Map.of(first.getId(), 3, second.getId(), 2));
+        assertEquals(3, productRepository.findById(first.getId()).orElseThrow().getStock());
+        assertEquals(2, productRepository.findById(second.getId()).orElseThrow().getStock());
+    }
+
+    // Lanza ATTEMPTS reservas desde THREADS hilos a la vez; solo se toleran rechazos por falta de stock
+    private void runConcurrently(Runnable reservation) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    reservation.run();
+                } catch (RuntimeException e) {
+                    assertTrue(e.getMessage().startsWith("Stock insuficiente"), e.getMessage());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    private Product createProduct(int stock) {
+        Category category = categoryRepository.save(new Category("Stress-" + System.nanoTime()));
+        return productRepository.save(new Product("Hot SKU", new BigDecimal("99.90"), stock, category, null, null, true));
+    }
+}
@@ -0,0 +1,59 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.service.UpstreamLimiter.Upstream;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Pasarela "lenta" simulada: las llamadas quedan bloqueadas hasta que el test las suelta
+class UpstreamLimiterTest {
+
+    private final UpstreamLimiter limiter = new UpstreamLimiter(2, 2, 100);
+
+    @Test
+    void slowUpstreamRejectsExtraCallsWithoutAffectingTheOthers() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch gateway = new CountDownLatch(1);
+        ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+
+        try {
+            Future<String> first = pool.submit(() -> limiter.call(Upstream.MERCADOPAGO, () -> slowCall(started, gateway)));
+            Future<String> second = pool.submit(() -> limiter.call(Upstream.MERCADOPAGO, () -> slowCall(started, gateway)));
+            started.await(5, TimeUnit.SECONDS);
+
+            assertThrows(UpstreamBusyException.class, () -> limiter.call(Upstream.MERCADOPAGO, () -> "ok"));
+            assertEquals("ok", limiter.call(Upstream.CLOUDINARY, () -> "ok"));
+
+            gateway.countDown();
+            assertEquals("approved", first.get(5, TimeUnit.SECONDS));
+            assertEquals("approved", second.get(5, TimeUnit.SECONDS));
+            assertEquals(2, limiter.availablePermits(Upstream.MERCADOPAGO));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void permitIsReleasedWhenTheCallFails() {
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IllegalStateException.class, () -> limiter.call(Upstream.MERCADOPAGO, () -> {
+                throw new IllegalStateException("MP caído");
+            }));
+        }
+        assertEquals(2, limiter.availablePermits(Upstream.MERCADOPAGO));
+    }
+
+    private String slowCall(CountDownLatch started, CountDownLatch gateway) throws InterruptedException {
+        started.countDown();
+        gateway.await(5, TimeUnit.SECONDS);
+        return "approved";
+    }
+}
@@ -0,0 +1,188 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.config.AsyncConfig;
+import com.ecommerce.template.model.WebhookEvent;
+import com.ecommerce.template.model.WebhookStatus;
+import com.ecommerce.template.repository.WebhookEventRepository;
+import com.mercadopago.resources.payment.Payment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+// MP simulado: PaymentService mockeado devuelve el pago que necesita cada escenario
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:webhooks;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "webhook.poll-interval-ms=3600000",
+        "webhook.max-attempts=3"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({WebhookService.class, AsyncConfig.class, SimpleMeterRegistry.class})
+class WebhookServiceTest {
+
+    private static final Map<String, String> NOTIFICATION = Map.of("type", "payment", "data.id", "777");
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private PaymentService paymentService;
+
+    @MockitoBean
+    private OrderService orderService;
+
+    @AfterEach
+    void cleanUp() {
+        webhookEventRepository.deleteAll();
+    }
+
+    @Test
+    void duplicateNotificationsApproveTheOrderOnlyOnce() throws Exception {
+        Payment approved = payment("approved", "42");
+        when(paymentService.getPaymentById(777L)).thenReturn(approved);
+
+        webhookService.enqueue(NOTIFICATION);
+        webhookService.enqueue(NOTIFICATION);
+        assertEquals(1, webhookEventRepository.count());
+
+        webhookService.dispatchDue();
+        WebhookEvent event = awaitSettled();
+        assertEquals(WebhookStatus.PROCESADO, event.getStatus());
+        assertEquals(42L, event.getOrderId());
+
+        // MP vuelve a avisar del mismo pago aprobado: no se re-encola
+        webhookService.enqueue(NOTIFICATION);
+        webhookService.dispatchDue();
+        assertEquals(WebhookStatus.PROCESADO, webhookEventRepository.findByPaymentId(777L).orElseThrow().getStatus());
+
+        verify(paymentService, times(1)).getPaymentById(777L);
+        verify(orderService, times(1)).approveOrderPayment(42L);
+        assertEquals(2, meterRegistry.counter("webhooks.received", "outcome", "duplicate").count());
+    }
+
+    @Test
+    void failuresAreRetriedWithBackoffUntilMaxAttempts() throws Exception {
+        when(paymentService.getPaymentById(777L)).thenThrow(new RuntimeException("MP no responde"));
+
+        webhookService.enqueue(NOTIFICATION);
+        Long id = webhookEventRepository.findByPaymentId(777L).orElseThrow().getId();
+
+        webhookService.process(id);
+        WebhookEvent event = webhookEventRepository.findById(id).orElseThrow();
+        assertEquals(WebhookStatus.PENDIENTE, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertEquals("MP no responde", event.getLastError());
+        assertTrue(event.getNextAttemptAt().isAfter(LocalDateTime.now()));
+
+        // Todavía no venció el backoff: el dispatcher no lo toma
+        webhookService.dispatchDue();
+        verify(paymentService, times(1)).getPaymentById(777L);
+
+        webhookService.process(id);
+        webhookService.process(id);
+        event = webhookEventRepository.findById(id).orElseThrow();
+        assertEquals(WebhookStatus.FALLIDO, event.getStatus());
+        assertEquals(3, event.getAttempts());
+        verify(orderService, never()).approveOrderPayment(any());
+        assertEquals(2, meterRegistry.counter("webhooks.processed", "outcome", "retry").count());
+        assertEquals(1, meterRegistry.counter("webhooks.processed", "outcome", "failed").count());
+    }
+
+    @Test
+    void pendingPaymentIsReprocessedWhenMercadoPagoNotifiesAgain() throws Exception {
+        Payment pending = payment("pending", "42");
+        Payment approved = payment("approved", "42");
+        when(paymentService.getPaymentById(777L)).thenReturn(pending, approved);
+
+        webhookService.enqueue(NOTIFICATION);
+        webhookService.dispatchDue();
+        assertEquals("pending", awaitSettled().getPaymentStatus());
+        verify(orderService, never()).approveOrderPayment(any());
+
+        webhookService.enqueue(NOTIFICATION);
+        webhookService.dispatchDue();
+        assertEquals("approved", awaitSettled().getPaymentStatus());
+        verify(orderService, times(1)).approveOrderPayment(42L);
+    }
+
+    @Test
+    void notificationDuringProcessingRunsTheEventAgainAfterTheAttempt() throws Exception {
+        Payment pending = payment("pending", "42");
+        Payment approved = payment("approved", "42");
+        // MP aprueba y vuelve a avisar mientras el worker todavía tiene la respuesta "pending"
+        when(paymentService.getPaymentById(777L))
+                .thenAnswer(invocation -> {
+                    webhookService.enqueue(NOTIFICATION);
+                    return pending;
+                })
+                .thenReturn(approved);
+
+        webhookService.enqueue(NOTIFICATION);
+        Long id = webhookEventRepository.findByPaymentId(777L).orElseThrow().getId();
+        webhookEventRepository.claim(id, LocalDateTime.now());
+        webhookService.process(id);
+
+        WebhookEvent event = webhookEventRepository.findById(id).orElseThrow();
+        assertEquals(WebhookStatus.PENDIENTE, event.getStatus());
+        assertEquals("pending", event.getPaymentStatus());
+        assertFalse(event.isRedeliver());
+        assertEquals(1, meterRegistry.counter("webhooks.received", "outcome", "redeliver").count());
+
+        webhookService.dispatchDue();
+        event = awaitSettled();
+        assertEquals(WebhookStatus.PROCESADO, event.getStatus());
+        assertEquals("approved", event.getPaymentStatus());
+        verify(orderService, times(1)).approveOrderPayment(42L);
+    }
+
+    @Test
+    void backoffGrowsExponentiallyUpToTheCap() {
+        assertEquals(5, webhookService.backoff(1).toSeconds());
+        assertEquals(10, webhookService.backoff(2).toSeconds());
+        assertEquals(40, webhookService.backoff(4).toSeconds());
+        assertEquals(3600, webhookService.backoff(30).toSeconds());
+    }
+
+    private WebhookEvent awaitSettled() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            WebhookEvent event = webhookEventRepository.findByPaymentId(777L).orElseThrow();
+            if (event.getStatus() != WebhookStatus.PROCESANDO) return event;
+            Thread.sleep(50);
+        }
+        throw new AssertionError("El webhook no terminó de procesarse");
+    }
+
+    private Payment payment(String status, String externalReference) {
+        Payment payment = mock(Payment.class);
+        when(payment.getStatus()).thenReturn(status);
+        when(payment.getExternalReference()).thenReturn(externalReference);
+        return payment;
+    }
+}
@@ -0,0 +1,181 @@
+package com.ecommerce.template.service;
+
+import com.ecommerce.template.dto.CartDTO;
+import com.ecommerce.template.dto.CartOperationDTO;
+import com.ecommerce.template.dto.CartOperationDTO.Type;
+import com.ecommerce.template.dto.PaymentRequestDTO;
+import com.ecommerce.template.model.Category;
+import com.ecommerce.template.model.Order;
+import com.ecommerce.template.model.Product;
+import com.ecommerce.template.model.User;
+import com.ecommerce.template.repository.CategoryRepository;
+import com.ecommerce.template.repository.ProductRepository;
+import com.ecommerce.template.repository.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Sin transacción de test: los volcados commitean en transacciones propias y se verifican con JDBC
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:writebehind;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "cart.store=write-behind",
+        "cart.write-behind.batch-size=2"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({WriteBehindCartStore.class, OrderService.class, StockService.class, SimpleMeterRegistry.class})
+class WriteBehindCartStoreTest {
+
+    @Autowired
+    private WriteBehindCartStore cartStore;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Product keyboard;
+    private Product mouse;
+
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(new Category("Cart-" + System.nanoTime()));
+        keyboard = productRepository.save(new Product("Teclado", new BigDecimal("50.00"), 5, category, null, null, true));
+        mouse = productRepository.save(new Product("Mouse", new BigDecimal("20.00"), 10, category, null, null, true));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void mutationsStayInMemoryUntilFlushedInCoalescedBatches() {
+        User first = createUser();
+        User second = createUser();
+        User third = createUser();
+
+        for (int i = 0; i < 3; i++) {
+            cartStore.addItem(first, keyboard.getId(), 1);
+        }
+        cartStore.addItem(second, mouse.getId(), 4);
+        cartStore.removeOne(second, mouse.getId());
+        CartDTO cart = cartStore.addItem(third, keyboard.getId(), 2);
+
+        assertEquals(1, cart.getItems().size());
+        assertEquals("Teclado", cart.getItems().get(0).getProductName());
+        assertEquals(Map.of(), itemsInDatabase(first), "nada se escribe antes del volcado");
+
+        cartStore.flushDirty();
+
+        // Tres clics del mismo usuario terminan en una sola fila
+        assertEquals(Map.of(keyboard.getId(), 3), itemsInDatabase(first));
+        assertEquals(Map.of(mouse.getId(), 3), itemsInDatabase(second));
+        assertEquals(Map.of(keyboard.getId(), 2), itemsInDatabase(third));
+    }
+
+    @Test
+    void evictedCartIsReloadedFromTheLastFlush() {
+        User user = createUser();
+        cartStore.applyOperations(user, List.of(
+                new CartOperationDTO(Type.SET, keyboard.getId(), 2),
+                new CartOperationDTO(Type.INCREMENT, mouse.getId(), 1)));
+        cartStore.flush(user.getId());
+
+        cartStore.addItem(user, mouse.getId(), 1); // sin volcar: se pierde, como en una caída
+        cartStore.evict(user.getId());
+
+        CartDTO reloaded = cartStore.getCart(user);
+        assertEquals(2, reloaded.getItems().size());
+        assertEquals(1, reloaded.getItems().stream()
+                .filter(item -> item.getProductId().equals(mouse.getId()))
+                .findFirst().orElseThrow().getQuantity());
+    }
+
+    @Test
+    void cartChangedDuringCheckoutIsNeverWrittenBackOverThePurchase() {
+        User user = createUser();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        cartStore.addItem(user, keyboard.getId(), 2);
+
+        Order order = cartStore.checkout(user.getId(), () -> {
+            // Entre el volcado y la orden el usuario sigue tocando el carrito y corre el volcado periódico
+            cartStore.addItem(user, mouse.getId(), 1);
+            CompletableFuture.runAsync(cartStore::flushDirty).join();
+            return orderService.createOrder(new PaymentRequestDTO(), user.getUsername());
+        });
+
+        // La orden lleva lo volcado antes del checkout, y después nada vuelve a escribir el carrito comprado
+        assertEquals(1, order.getItems().size());
+        assertEquals(keyboard.getId(), order.getItems().get(0).getProduct().getId());
+        cartStore.flushDirty();
+        assertEquals(Map.of(), itemsInDatabase(user));
+        assertEquals(0, cartStore.getCart(user).getItems().size());
+    }
+
+    @Test
+    void rejectedBatchLeavesTheCartUntouched() {
+        User user = createUser();
+        cartStore.addItem(user, keyboard.getId(), 4);
+
+        assertThrows(RuntimeException.class, () -> cartStore.applyOperations(user, List.of(
+                new CartOperationDTO(Type.REMOVE, keyboard.getId(), null),
+                new CartOperationDTO(Type.SET, mouse.getId(), 11))));
+        assertThrows(RuntimeException.class, () -> cartStore.addItem(user, keyboard.getId(), 2));
+
+        CartDTO cart = cartStore.getCart(user);
+        assertEquals(1, cart.getItems().size());
+        assertEquals(4, cart.getItems().get(0).getQuantity());
+    }
+
+    private User createUser() {
+        User user = new User("wb-" + System.nanoTime(), "secret");
+        user.setRole("USER");
+        return userRepository.save(user);
+    }
+
+    private Map<Long, Integer> itemsInDatabase(User user) {
+        return jdbcTemplate.query(
+                "SELECT ci.product_id, ci.quantity FROM cart_items ci JOIN carts c ON c.id = ci.cart_id WHERE c.user_id = ?",
+                rs -> {
+                    Map<Long, Integer> items = new HashMap<>();
+                    while (rs.next()) items.put(rs.getLong(1), rs.getInt(2));
+                    return items;
+                }, user.getId());
+    }
+}